@@ -0,0 +1,22 @@
+package dungeoncrawler;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Punkt wejścia benchmarks.jar: zwykłe opcje JMH z włączonym profilerem GC (alokacje na operację).
+// Największe rozmiary potrzebują dużej sterty, np.:
+//   java -jar benchmarks/target/benchmarks.jar -jvmArgsAppend -Xmx24g
+//   java -jar benchmarks/target/benchmarks.jar Pathfinding -p size=42x24x5,256x256x8
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
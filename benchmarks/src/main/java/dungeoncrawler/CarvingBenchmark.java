@@ -0,0 +1,41 @@
+package dungeoncrawler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Koszt rzeźbienia jednego piętra dla każdego algorytmu MazeCarver
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CarvingBenchmark {
+
+    @Param({"42x24x5", "256x256x8", "1024x1024x16"})
+    public String size;
+
+    @Param({"RECURSIVE_BACKTRACKER", "WILSON", "ELLER", "BINARY_TREE"})
+    public String mode;
+
+    private MazeCarver.Mode carveMode;
+    private TileStore floor;
+    private MazeCarver carver;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapSize map = MapSize.parse(size);
+        floor = new PackedTileStore(map.width, map.height, 1);
+        carver = new MazeCarver();
+        carveMode = MazeCarver.Mode.valueOf(mode);
+    }
+
+    @Benchmark
+    public int carve() {
+        floor.fill(0, '#');
+        return carver.carve(floor, 0, carveMode, new SplittableRandom(seed++));
+    }
+}
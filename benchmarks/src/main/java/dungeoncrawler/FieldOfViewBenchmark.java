@@ -0,0 +1,80 @@
+package dungeoncrawler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Koszt pola widzenia na jeden krok gracza: liczenie od zera i z cache pozycji (gracz chodzący tam i z powrotem
+// po tej samej trasie trafia w cache), dla różnych promieni i rozmiarów map
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FieldOfViewBenchmark {
+
+    // Najdłuższa trasa, po której chodzi gracz w benchmarku (kroki na piętrze startowym)
+    private static final int MAX_WALK = 1024;
+
+    @Param({"42x24x5", "256x256x8", "1024x1024x16"})
+    public String size;
+
+    @Param({"4", "8", "16"})
+    public int radius;
+
+    private FieldOfView uncached;
+    private FieldOfView cached;
+    private int[] walkX, walkY;
+    private int floor;
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapSize map = MapSize.parse(size);
+        Dungeon dungeon = DungeonGenerator.generate(7, map.width, map.height, map.floors);
+        floor = Math.min(DungeonGame.PLAYER_START_FLOOR, map.floors - 1);
+        int start = MapSize.firstOpenCell(dungeon.tiles, floor);
+
+        // Trasa gracza: najkrótsza droga do celu obcięta do piętra startowego
+        IntQueue path = new IntQueue();
+        new BfsPathfinder().findPathToGoal(dungeon, start % map.width, start / map.width, floor, path);
+        IntQueue walk = new IntQueue();
+        walk.add(start);
+        for (int i = 0; i < path.size() && walk.size() < MAX_WALK && dungeon.cellFloor(path.get(i)) == floor; i++) {
+            walk.add(path.get(i) - floor * dungeon.floorSize);
+        }
+        walkX = new int[walk.size()];
+        walkY = new int[walk.size()];
+        for (int i = 0; i < walk.size(); i++) {
+            walkX[i] = walk.get(i) % map.width;
+            walkY[i] = walk.get(i) / map.width;
+        }
+
+        uncached = new FieldOfView(dungeon.tiles, radius, 0);
+        cached = new FieldOfView(dungeon.tiles, radius, MAX_WALK);
+    }
+
+    @Benchmark
+    public int computePerMove() {
+        int i = next();
+        return uncached.compute(floor, walkX[i], walkY[i]).length;
+    }
+
+    @Benchmark
+    public int cachedPerMove() {
+        int i = next();
+        return cached.visibleFrom(floor, walkX[i], walkY[i]).length;
+    }
+
+    // Tam i z powrotem po trasie, jak gracz krążący po znanym fragmencie mapy
+    private int next() {
+        int n = walkX.length;
+        int period = Math.max(1, 2 * n - 2);
+        int i = step++ % period;
+        if (step == period) {
+            step = 0;
+        }
+        return i < n ? i : period - i;
+    }
+}
@@ -0,0 +1,76 @@
+package dungeoncrawler;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Rzeźbienie piętra (razem z indeksem cech), pełne skanowanie do indeksu i stawianie schodów dla rosnących rozmiarów map
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerationBenchmark {
+
+    // Piętra w magazynach do addStairs: 0 i 1 to nietknięte wzorce, 2 i 3 dostają schody
+    private static final int STAIR_FLOOR = 2;
+
+    @Param({"42x24x5", "256x256x8", "1024x1024x16", "4096x4096x64"})
+    public String size;
+
+    private TileStore floor;
+    private FeatureIndex floorFeatures;
+    private TileStore carved;
+    private PackedTileStore stairFloors;
+    private FeatureIndex stairFeatures;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapSize map = MapSize.parse(size);
+        floor = new PackedTileStore(map.width, map.height, 1);
+        floorFeatures = new FeatureIndex(map.width, map.height, 1);
+        carved = new PackedTileStore(map.width, map.height, 1);
+        generate(carved, new FeatureIndex(map.width, map.height, 1), 0, false, 1);
+
+        stairFloors = new PackedTileStore(map.width, map.height, 4);
+        stairFeatures = new FeatureIndex(map.width, map.height, 4);
+        generate(stairFloors, stairFeatures, 0, false, 2);
+        generate(stairFloors, stairFeatures, 1, false, 3);
+    }
+
+    // addStairs zmienia piętra i zużywa ślepe zaułki z indeksu, więc każde wywołanie dostaje świeżą kopię dwóch pięter
+    @Setup(Level.Invocation)
+    public void restoreStairFloors() {
+        stairFloors.copyFloor(STAIR_FLOOR, stairFloors, 0);
+        stairFloors.copyFloor(STAIR_FLOOR + 1, stairFloors, 1);
+        stairFeatures.scanFloor(stairFloors, STAIR_FLOOR);
+        stairFeatures.scanFloor(stairFloors, STAIR_FLOOR + 1);
+    }
+
+    @Benchmark
+    public int generateDungeon() {
+        return generate(floor, floorFeatures, 0, true, seed++);
+    }
+
+    // Dla porównania z indeksem budowanym w trakcie rzeźbienia: osobny przebieg po gotowym piętrze
+    @Benchmark
+    public void scanFeatures(Blackhole blackhole) {
+        blackhole.consume(FeatureIndex.scan(carved));
+    }
+
+    @Benchmark
+    public TileStore addStairs() {
+        // Przypadek ogólny: schody w dół na tym piętrze i w górę na następnym
+        DungeonGenerator.addStairs(stairFloors, stairFeatures, STAIR_FLOOR, false, new SplittableRandom(seed++));
+        return stairFloors;
+    }
+
+    private static int generate(TileStore tiles, FeatureIndex features, int floor, boolean goal, long seed) {
+        return DungeonGenerator.generateDungeon(tiles, features, floor, goal, MazeCarver.Mode.RECURSIVE_BACKTRACKER,
+                new SplittableRandom(seed));
+    }
+}
@@ -0,0 +1,132 @@
+package dungeoncrawler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Przed/po: dawny BFS (int[] na komórkę, LinkedList, tablice wielowymiarowe) kontra BfsPathfinder.
+// Tylko mniejsze mapy; stara wersja alokuje int[3] na każdą komórkę lochu przy każdym wywołaniu.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LegacyPathfindingBenchmark {
+
+    @Param({"42x24x5", "256x256x8"})
+    public String size;
+
+    private Dungeon dungeon;
+    private char[][][] legacyTiles;
+    private BfsPathfinder pathfinder;
+    private IntQueue path;
+    private int startX, startY, startFloor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapSize map = MapSize.parse(size);
+        dungeon = DungeonGenerator.generate(7, map.width, map.height, map.floors);
+        pathfinder = new BfsPathfinder();
+        path = new IntQueue();
+
+        startFloor = Math.min(DungeonGame.PLAYER_START_FLOOR, map.floors - 1);
+        int start = MapSize.firstOpenCell(dungeon.tiles, startFloor);
+        startX = start % map.width;
+        startY = start / map.width;
+
+        // Stary BFS pracuje na char[][][], jak przed wprowadzeniem TileStore
+        legacyTiles = new char[map.floors][map.height][map.width];
+        for (int f = 0; f < map.floors; f++) {
+            for (int y = 0; y < map.height; y++) {
+                for (int x = 0; x < map.width; x++) {
+                    legacyTiles[f][y][x] = dungeon.tiles.get(f, x, y);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int legacy() {
+        return legacyFindPath(legacyTiles, startX, startY, startFloor).size();
+    }
+
+    @Benchmark
+    public int engine() {
+        return pathfinder.findPathToGoal(dungeon, startX, startY, startFloor, path);
+    }
+
+    // Dawna implementacja findShortestPathToGoal, zachowana jako punkt odniesienia
+    private static Queue<int[]> legacyFindPath(char[][][] dungeons, int playerX, int playerY, int currentFloor) {
+        int floors = dungeons.length;
+        int height = dungeons[0].length;
+        int width = dungeons[0][0].length;
+
+        Queue<int[]> path = new LinkedList<>();
+        boolean[][][] visited = new boolean[floors][height][width];
+        int[][][][] parent = new int[floors][height][width][3];
+        int[][] directions = { {0, 1}, {1, 0}, {0, -1}, {-1, 0} };
+
+        Queue<int[]> queue = new LinkedList<>();
+        queue.add(new int[] {playerX, playerY, currentFloor});
+        visited[currentFloor][playerY][playerX] = true;
+        boolean goalFound = false;
+        int goalFloor = -1, goalX = -1, goalY = -1;
+
+        while (!queue.isEmpty() && !goalFound) {
+            int[] current = queue.poll();
+            int x = current[0], y = current[1], floor = current[2];
+
+            for (int[] dir : directions) {
+                int nx = x + dir[0];
+                int ny = y + dir[1];
+
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && !visited[floor][ny][nx] && dungeons[floor][ny][nx] != '#') {
+                    queue.add(new int[] {nx, ny, floor});
+                    visited[floor][ny][nx] = true;
+                    parent[floor][ny][nx][0] = x;
+                    parent[floor][ny][nx][1] = y;
+                    parent[floor][ny][nx][2] = floor;
+
+                    if (dungeons[floor][ny][nx] == 'G') {
+                        goalFound = true;
+                        goalFloor = floor;
+                        goalX = nx;
+                        goalY = ny;
+                        break;
+                    }
+                }
+            }
+
+            if (!goalFound && dungeons[floor][y][x] == 'U' && floor < floors - 1 && !visited[floor + 1][y][x]) {
+                queue.add(new int[] {x, y, floor + 1});
+                visited[floor + 1][y][x] = true;
+                parent[floor + 1][y][x][0] = x;
+                parent[floor + 1][y][x][1] = y;
+                parent[floor + 1][y][x][2] = floor;
+            } else if (!goalFound && dungeons[floor][y][x] == 'D' && floor > 0 && !visited[floor - 1][y][x]) {
+                queue.add(new int[] {x, y, floor - 1});
+                visited[floor - 1][y][x] = true;
+                parent[floor - 1][y][x][0] = x;
+                parent[floor - 1][y][x][1] = y;
+                parent[floor - 1][y][x][2] = floor;
+            }
+        }
+
+        if (goalFound) {
+            int cx = goalX, cy = goalY, cf = goalFloor;
+
+            while (cx != playerX || cy != playerY || cf != currentFloor) {
+                path.add(new int[] {cx, cy, cf});
+                int[] p = parent[cf][cy][cx];
+                cx = p[0];
+                cy = p[1];
+                cf = p[2];
+            }
+            Collections.reverse((LinkedList<int[]>) path);
+        }
+
+        return path;
+    }
+}
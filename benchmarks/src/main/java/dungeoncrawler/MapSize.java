@@ -0,0 +1,30 @@
+package dungeoncrawler;
+
+// Rozmiar mapy z parametru JMH w postaci "SZEROKOŚĆxWYSOKOŚĆxPIĘTRA", np. "42x24x5"
+final class MapSize {
+
+    final int width, height, floors;
+
+    private MapSize(int width, int height, int floors) {
+        this.width = width;
+        this.height = height;
+        this.floors = floors;
+    }
+
+    static MapSize parse(String size) {
+        String[] parts = size.split("x");
+        return new MapSize(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+    }
+
+    // Pierwsza wolna komórka piętra w kolejności wierszy, jako y * width + x
+    static int firstOpenCell(TileStore tiles, int floor) {
+        for (int y = 0; y < tiles.height(); y++) {
+            for (int x = 0; x < tiles.width(); x++) {
+                if (tiles.get(floor, x, y) != '#') {
+                    return y * tiles.width() + x;
+                }
+            }
+        }
+        throw new IllegalStateException("Floor has no open cells");
+    }
+}
@@ -0,0 +1,54 @@
+package dungeoncrawler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Silniki Pathfinder po całym lochu (findShortestPathToGoal) i w obrębie piętra (isReachable)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PathfindingBenchmark {
+
+    @Param({"42x24x5", "256x256x8", "1024x1024x16", "4096x4096x64"})
+    public String size;
+
+    @Param({"BFS", "A_STAR", "BIDIRECTIONAL", "JUMP_POINT", "JUNCTION"})
+    public String solver;
+
+    private Dungeon dungeon;
+    private Pathfinder pathfinder;
+    private IntQueue path;
+    private int startX, startY, startFloor;
+    private int reachX, reachY;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapSize map = MapSize.parse(size);
+        dungeon = DungeonGenerator.generate(7, map.width, map.height, map.floors);
+        pathfinder = Pathfinder.create(Pathfinder.Algorithm.valueOf(solver));
+        path = new IntQueue();
+
+        startFloor = Math.min(DungeonGame.PLAYER_START_FLOOR, map.floors - 1);
+        int start = MapSize.firstOpenCell(dungeon.tiles, startFloor);
+        startX = start % map.width;
+        startY = start / map.width;
+
+        int reach = MapSize.firstOpenCell(dungeon.tiles, dungeon.goalFloor);
+        reachX = reach % map.width;
+        reachY = reach / map.width;
+    }
+
+    @Benchmark
+    public int findShortestPathToGoal() {
+        return pathfinder.findPathToGoal(dungeon, startX, startY, startFloor, path);
+    }
+
+    @Benchmark
+    public boolean isReachable() {
+        return pathfinder.isReachable(dungeon.tiles, dungeon.goalFloor, reachX, reachY, dungeon.goalX, dungeon.goalY);
+    }
+}
@@ -0,0 +1,47 @@
+package dungeoncrawler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Graf schodów: budowa raz na loch i ponowne planowanie z gotowego grafu (po teleporcie między piętrami)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StairGraphBenchmark {
+
+    // Większe mapy przekraczają StairGraph.MAX_CELLS
+    @Param({"42x24x5", "256x256x8", "1024x1024x16"})
+    public String size;
+
+    private Dungeon dungeon;
+    private StairGraph stairGraph;
+    private IntQueue path;
+    private int startX, startY, startFloor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapSize map = MapSize.parse(size);
+        dungeon = DungeonGenerator.generate(7, map.width, map.height, map.floors);
+        stairGraph = new StairGraph(dungeon);
+        path = new IntQueue();
+
+        startFloor = Math.min(DungeonGame.PLAYER_START_FLOOR, map.floors - 1);
+        int start = MapSize.firstOpenCell(dungeon.tiles, startFloor);
+        startX = start % map.width;
+        startY = start / map.width;
+    }
+
+    @Benchmark
+    public StairGraph buildStairGraph() {
+        return new StairGraph(dungeon);
+    }
+
+    @Benchmark
+    public int replanWithStairGraph() {
+        return stairGraph.findPathToGoal(startX, startY, startFloor, path);
+    }
+}
@@ -0,0 +1,137 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// A* z heurystyką Manhattan + różnica pięter; obie są dopuszczalne i spójne, bo krok zmienia x lub y
+// o jeden, a schody zmieniają tylko piętro o jeden. Tablice nie są czyszczone między wyszukiwaniami:
+// komórka jest ważna tylko, gdy jej stempel równa się numerowi bieżącego wyszukiwania.
+final class AStarPathfinder implements Pathfinder {
+
+    private int[] cost = new int[0];
+    private int[] stamp = new int[0];
+    private byte[] from = new byte[0];
+    private int search;
+    private long expanded;
+    private final LongHeap open = new LongHeap();
+    private final SearchStats stats = new SearchStats();
+
+    private int width, height, floorSize;
+    private int goalX, goalY, goalFloor;
+
+    @Override
+    public int findPathToGoal(Dungeon d, int startX, int startY, int startFloor, IntQueue path) {
+        long startNanos = System.nanoTime();
+        path.clear();
+        int goal = d.cell(d.goalX, d.goalY, d.goalFloor);
+        int start = d.cell(startX, startY, startFloor);
+        expanded = 0;
+        // Cel mógł zostać nadpisany; wtedy, jak w BFS, drogi nie ma
+        if (d.tiles.get(d.goalFloor, d.goalX, d.goalY) == 'G' && search(d.tiles, start, goal, true)) {
+            for (int c = goal; c != start; c = Pathfinder.parentOf(from[c], c, width, floorSize)) {
+                path.addFirst(c);
+            }
+        }
+        stats.record(expanded, System.nanoTime() - startNanos);
+        return path.size();
+    }
+
+    @Override
+    public boolean isReachable(TileStore tiles, int floor, int startX, int startY, int goalX, int goalY) {
+        long startNanos = System.nanoTime();
+        int floorSize = tiles.width() * tiles.height();
+        int base = floor * floorSize;
+        int goal = base + goalY * tiles.width() + goalX;
+        boolean found = search(tiles, base + startY * tiles.width() + startX, goal, false);
+        stats.record(expanded, System.nanoTime() - startNanos);
+        return found;
+    }
+
+    @Override
+    public SearchStats stats() {
+        return stats;
+    }
+
+    private boolean search(TileStore tiles, int start, int goal, boolean stairs) {
+        width = tiles.width();
+        height = tiles.height();
+        floorSize = width * height;
+        goalFloor = goal / floorSize;
+        goalX = goal % width;
+        goalY = (goal % floorSize) / width;
+        prepare((long) floorSize * tiles.floors());
+        int floors = tiles.floors();
+
+        open.clear();
+        visit(start, 0, START);
+        expanded = 0;
+
+        while (!open.isEmpty()) {
+            long entry = open.poll();
+            int current = (int) entry;
+            int g = cost[current];
+            // Nieaktualny wpis: komórka dostała potem niższy koszt
+            if ((int) (entry >>> 32) != g + heuristic(current)) {
+                continue;
+            }
+            expanded++;
+            if (current == goal) {
+                return true;
+            }
+
+            int floor = current / floorSize;
+            int x = current % width;
+            int y = (current % floorSize) / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && tiles.get(floor, nx, ny) != '#') {
+                    relax(current + DY[dir] * width + DX[dir], g + 1, (byte) (dir + 1));
+                }
+            }
+
+            if (stairs) {
+                char tile = tiles.get(floor, x, y);
+                if (tile == 'U' && floor < floors - 1) {
+                    relax(current + floorSize, g + 1, FROM_BELOW);
+                } else if (tile == 'D' && floor > 0) {
+                    relax(current - floorSize, g + 1, FROM_ABOVE);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void relax(int cell, int g, byte code) {
+        if (stamp[cell] != search || g < cost[cell]) {
+            visit(cell, g, code);
+        }
+    }
+
+    private void visit(int cell, int g, byte code) {
+        stamp[cell] = search;
+        cost[cell] = g;
+        from[cell] = code;
+        open.add(((long) (g + heuristic(cell)) << 32) | cell);
+    }
+
+    private int heuristic(int cell) {
+        int floor = cell / floorSize;
+        int x = cell % width;
+        int y = (cell % floorSize) / width;
+        return Math.abs(x - goalX) + Math.abs(y - goalY) + Math.abs(floor - goalFloor);
+    }
+
+    private void prepare(long cells) {
+        Pathfinder.checkCapacity(cells);
+        if (stamp.length < cells) {
+            cost = new int[(int) cells];
+            stamp = new int[(int) cells];
+            from = new byte[(int) cells];
+            search = 0;
+        }
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package dungeoncrawler;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+// Wielu graczy auto-play na jednym lochu naraz. Stan agentów w osobnych tablicach (struktura tablic),
+// wspólne pole odległości do celu liczone raz na loch, więc krok agenta to dwa odczyty tablic bez BFS.
+// Agenci nie zostawiają śladów i nie zmieniają mapy; po dojściu do celu agent startuje od nowa
+// w losowym miejscu piętra startowego. Tik przetwarza agentów partiami równolegle na puli wątków;
+// każdy agent ma własny stan losowania, więc wynik nie zależy od liczby wątków.
+// Użycie: java AgentSimulation [agents] [ticks] [seed] [threads] [width height floors]
+final class AgentSimulation {
+
+    private static final int BATCH = 1024;
+
+    private final Dungeon dungeon;
+    private final GoalDistanceField field;
+    private final FeatureIndex features;
+    private final int startFloor;
+
+    private final int[] cell;
+    private final int[] steps; // kroki w bieżącym przejściu
+    private final long[] random; // stan splitmix64 agenta
+
+    private final LongAdder arrivals = new LongAdder();
+    private final LongAdder arrivalSteps = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LatencyHistogram tickNanos = new LatencyHistogram();
+    private long ticks;
+
+    AgentSimulation(Dungeon dungeon, GoalDistanceField field, int agents, long seed) {
+        this.dungeon = dungeon;
+        this.field = field;
+        this.features = dungeon.features();
+        this.startFloor = Math.min(DungeonGame.PLAYER_START_FLOOR, dungeon.floors - 1);
+        cell = new int[agents];
+        steps = new int[agents];
+        random = new long[agents];
+        for (int i = 0; i < agents; i++) {
+            random[i] = mix(seed + (i + 1) * 0x9E3779B97F4A7C15L);
+            cell[i] = spawn(i);
+        }
+    }
+
+    int agents() {
+        return cell.length;
+    }
+
+    int cell(int agent) {
+        return cell[agent];
+    }
+
+    long ticks() {
+        return ticks;
+    }
+
+    long arrivals() {
+        return arrivals.sum();
+    }
+
+    long moves() {
+        return moves.sum();
+    }
+
+    double meanStepsPerArrival() {
+        long n = arrivals.sum();
+        return n == 0 ? 0 : (double) arrivalSteps.sum() / n;
+    }
+
+    LatencyHistogram tickNanos() {
+        return tickNanos;
+    }
+
+    // Jeden tik: każdy agent robi jeden krok po polu odległości; zwraca liczbę kroków w tym tiku
+    long tick(ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long before = moves.sum();
+        int batches = (cell.length + BATCH - 1) / BATCH;
+        if (batches <= 1 || pool.getParallelism() == 1) {
+            for (int b = 0; b < batches; b++) {
+                stepBatch(b);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, batches).parallel().forEach(this::stepBatch)).join();
+        }
+        ticks++;
+        long elapsed = System.nanoTime() - start;
+        tickNanos.record(elapsed);
+        long moved = moves.sum() - before;
+        GameMetrics.GLOBAL.steps.add(moved);
+        return moved;
+    }
+
+    // Partia agentów [b * BATCH, (b + 1) * BATCH): zapisy tylko do własnych indeksów, liczniki raz na partię
+    private void stepBatch(int b) {
+        int from = b * BATCH, to = Math.min(cell.length, from + BATCH);
+        int moved = 0, arrived = 0;
+        long arrivedSteps = 0;
+        for (int i = from; i < to; i++) {
+            int next = field.nextCell(cell[i]);
+            if (next < 0) {
+                // Na celu (albo w miejscu bez drogi do celu): nowe przejście z losowego pola
+                if (field.distance(cell[i]) == 0) {
+                    arrived++;
+                    arrivedSteps += steps[i];
+                }
+                steps[i] = 0;
+                cell[i] = spawn(i);
+                continue;
+            }
+            cell[i] = next;
+            steps[i]++;
+            moved++;
+        }
+        moves.add(moved);
+        if (arrived > 0) {
+            arrivals.add(arrived);
+            arrivalSteps.add(arrivedSteps);
+        }
+    }
+
+    private int spawn(int agent) {
+        long state = random[agent] += 0x9E3779B97F4A7C15L;
+        int count = features.openCount(startFloor);
+        int index = (int) (((mix(state) >>> 33) * count) >>> 31);
+        return startFloor * dungeon.floorSize + features.openCell(startFloor, index);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) {
+        int agents = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int tickCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int width = args.length > 6 ? Integer.parseInt(args[4]) : DungeonGame.DEFAULT_WIDTH;
+        int height = args.length > 6 ? Integer.parseInt(args[5]) : DungeonGame.DEFAULT_HEIGHT;
+        int floors = args.length > 6 ? Integer.parseInt(args[6]) : DungeonGame.DEFAULT_FLOORS;
+
+        Dungeon dungeon = DungeonGenerator.generate(seed, width, height, floors);
+        long fieldStart = System.nanoTime();
+        GoalDistanceField field = dungeon.goalField();
+        double fieldMillis = (System.nanoTime() - fieldStart) / 1e6;
+        AgentSimulation simulation = new AgentSimulation(dungeon, field, agents, seed);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < tickCount; t++) {
+            simulation.tick(pool);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        LatencyHistogram ticks = simulation.tickNanos();
+        System.out.println("Agents:           " + agents + " on " + width + "x" + height + "x" + floors + " (seed " + seed + ")");
+        System.out.println("Threads:          " + threads);
+        System.out.printf("Distance field:   %.2f ms (one BFS for all agents)%n", fieldMillis);
+        System.out.println("Ticks:            " + simulation.ticks());
+        System.out.printf("Agent steps/sec:  %.0f%n", simulation.moves() / seconds);
+        System.out.printf("Tick time:        p50 %d us, p99 %d us, max %d us%n",
+                ticks.percentile(0.5) / 1000, ticks.percentile(0.99) / 1000, ticks.max() / 1000);
+        System.out.printf("Arrivals:         %d, avg %.1f steps%n", simulation.arrivals(), simulation.meanStepsPerArrival());
+        System.out.printf("Elapsed:          %.3f s%n", seconds);
+    }
+}
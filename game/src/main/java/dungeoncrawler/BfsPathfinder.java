@@ -0,0 +1,133 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// BFS bez alokacji na wyszukiwanie: komórki jako jeden int, kolejka na buforze cyklicznym
+// i płaska tablica kierunków, z których przyszliśmy (zastępuje visited i parent).
+final class BfsPathfinder implements Pathfinder {
+
+    private byte[] from = new byte[0];
+    private final IntQueue queue = new IntQueue();
+    private final SearchStats stats = new SearchStats();
+
+    @Override
+    public int findPathToGoal(Dungeon d, int startX, int startY, int startFloor, IntQueue path) {
+        long startNanos = System.nanoTime();
+        long expanded = 0;
+        TileStore tiles = d.tiles;
+        int width = d.width;
+        int floorSize = d.floorSize;
+        int cells = ensureCapacity(d.cellCount());
+        path.clear();
+        Arrays.fill(from, 0, cells, UNVISITED);
+        queue.clear();
+
+        int start = d.cell(startX, startY, startFloor);
+        queue.add(start);
+        from[start] = START;
+        int goal = -1;
+
+        while (!queue.isEmpty() && goal < 0) {
+            int current = queue.poll();
+            expanded++;
+            int floor = d.cellFloor(current);
+            int x = d.cellX(current);
+            int y = d.cellY(current);
+
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+
+                if (nx >= 0 && nx < width && ny >= 0 && ny < d.height && tiles.get(floor, nx, ny) != '#') {
+                    int next = current + DY[dir] * width + DX[dir];
+                    if (from[next] == UNVISITED) {
+                        from[next] = (byte) (dir + 1);
+                        queue.add(next);
+                        if (tiles.get(floor, nx, ny) == 'G') {
+                            goal = next;
+                            break;
+                        }
+                    }
+                }
+            }
+
+            // Lądowanie ze schodów prosto na 'G' też kończy wyszukiwanie
+            char tile = tiles.get(floor, x, y);
+            if (goal < 0 && tile == 'U' && floor < d.floors - 1 && from[current + floorSize] == UNVISITED) {
+                from[current + floorSize] = FROM_BELOW;
+                queue.add(current + floorSize);
+                if (tiles.get(floor + 1, x, y) == 'G') {
+                    goal = current + floorSize;
+                }
+            } else if (goal < 0 && tile == 'D' && floor > 0 && from[current - floorSize] == UNVISITED) {
+                from[current - floorSize] = FROM_ABOVE;
+                queue.add(current - floorSize);
+                if (tiles.get(floor - 1, x, y) == 'G') {
+                    goal = current - floorSize;
+                }
+            }
+        }
+
+        if (goal >= 0) {
+            for (int c = goal; c != start; c = Pathfinder.parentOf(from[c], c, width, floorSize)) {
+                path.addFirst(c);
+            }
+        }
+        stats.record(expanded, System.nanoTime() - startNanos);
+        return path.size();
+    }
+
+    @Override
+    public boolean isReachable(TileStore tiles, int floor, int startX, int startY, int goalX, int goalY) {
+        long startNanos = System.nanoTime();
+        long expanded = 0;
+        int height = tiles.height();
+        int width = tiles.width();
+        int cells = ensureCapacity((long) width * height);
+        Arrays.fill(from, 0, cells, UNVISITED);
+        queue.clear();
+
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        queue.add(start);
+        from[start] = START;
+
+        boolean found = false;
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            expanded++;
+            if (current == goal) {
+                found = true;
+                break;
+            }
+            int x = current % width;
+            int y = current / width;
+
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = ny * width + nx;
+
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && from[next] == UNVISITED && tiles.get(floor, nx, ny) != '#') {
+                    from[next] = (byte) (dir + 1);
+                    queue.add(next);
+                }
+            }
+        }
+        stats.record(expanded, System.nanoTime() - startNanos);
+        return found;
+    }
+
+    @Override
+    public SearchStats stats() {
+        return stats;
+    }
+
+    private int ensureCapacity(long cells) {
+        Pathfinder.checkCapacity(cells);
+        if (from.length < cells) {
+            from = new byte[(int) cells];
+        }
+        return (int) cells;
+    }
+}
@@ -0,0 +1,229 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// Dwukierunkowy BFS: od startu po zwykłych ruchach i wstecz od celu po ruchach odwróconych.
+// Zawsze rozwijana jest cała warstwa mniejszej kolejki; po pierwszym spotkaniu kończymy tę warstwę
+// i bierzemy najkrótsze z jej spotkań, co daje optimum jak w zwykłym BFS.
+// Poprzednicy komórki przy wyszukiwaniu wstecz: otwarci sąsiedzi, sąsiedzi-ściany tylko wtedy,
+// gdy są lądowiskiem schodów (albo startem), oraz 'U' piętro niżej / 'D' piętro wyżej na tym samym x, y.
+final class BidirectionalPathfinder implements Pathfinder {
+
+    // Kody w toGoal[]: 1..4 = krok do sąsiada, 5/6 = schody na piętro wyżej/niżej
+    private static final byte TO_ABOVE = 5;
+    private static final byte TO_BELOW = 6;
+
+    private byte[] from = new byte[0];
+    private byte[] toGoal = new byte[0];
+    private int[] forwardDist = new int[0];
+    private int[] backwardDist = new int[0];
+    private int[] forwardStamp = new int[0];
+    private int[] backwardStamp = new int[0];
+    private int search;
+    private long expanded;
+    private final IntQueue forward = new IntQueue();
+    private final IntQueue backward = new IntQueue();
+    private final SearchStats stats = new SearchStats();
+
+    private int width, height, floors, floorSize;
+
+    @Override
+    public int findPathToGoal(Dungeon d, int startX, int startY, int startFloor, IntQueue path) {
+        long startNanos = System.nanoTime();
+        path.clear();
+        int start = d.cell(startX, startY, startFloor);
+        int goal = d.cell(d.goalX, d.goalY, d.goalFloor);
+        expanded = 0;
+
+        if (d.tiles.get(d.goalFloor, d.goalX, d.goalY) == 'G') {
+            int meet = search(d.tiles, start, goal, true);
+            if (meet >= 0) {
+                for (int c = meet; c != start; c = Pathfinder.parentOf(from[c], c, width, floorSize)) {
+                    path.addFirst(c);
+                }
+                for (int c = meet; c != goal; ) {
+                    c = next(c);
+                    path.add(c);
+                }
+            }
+        }
+        stats.record(expanded, System.nanoTime() - startNanos);
+        return path.size();
+    }
+
+    @Override
+    public boolean isReachable(TileStore tiles, int floor, int startX, int startY, int goalX, int goalY) {
+        long startNanos = System.nanoTime();
+        int base = floor * tiles.width() * tiles.height();
+        boolean found = search(tiles, base + startY * tiles.width() + startX, base + goalY * tiles.width() + goalX, false) >= 0;
+        stats.record(expanded, System.nanoTime() - startNanos);
+        return found;
+    }
+
+    @Override
+    public SearchStats stats() {
+        return stats;
+    }
+
+    // Zwraca komórkę spotkania na najkrótszej drodze albo -1
+    private int search(TileStore tiles, int start, int goal, boolean stairs) {
+        width = tiles.width();
+        height = tiles.height();
+        floors = tiles.floors();
+        floorSize = width * height;
+        prepare((long) floorSize * floors);
+        expanded = 0;
+
+        forward.clear();
+        backward.clear();
+        forwardStamp[start] = search;
+        forwardDist[start] = 0;
+        from[start] = START;
+        forward.add(start);
+        backwardStamp[goal] = search;
+        backwardDist[goal] = 0;
+        backward.add(goal);
+        if (start == goal) {
+            return start;
+        }
+
+        int best = Integer.MAX_VALUE;
+        int meet = -1;
+        while (meet < 0 && !forward.isEmpty() && !backward.isEmpty()) {
+            boolean fromStart = forward.size() <= backward.size();
+            IntQueue queue = fromStart ? forward : backward;
+            for (int layer = queue.size(); layer > 0; layer--) {
+                int current = queue.poll();
+                expanded++;
+                int found = fromStart ? expandForward(tiles, current, stairs) : expandBackward(tiles, current, start, stairs);
+                if (found >= 0 && forwardDist[found] + backwardDist[found] < best) {
+                    best = forwardDist[found] + backwardDist[found];
+                    meet = found;
+                }
+            }
+        }
+        return meet;
+    }
+
+    // Rozwija komórkę od strony startu; zwraca najlepsze spotkanie z drugą stroną wśród nowych komórek albo -1
+    private int expandForward(TileStore tiles, int current, boolean stairs) {
+        int floor = current / floorSize;
+        int x = current % width;
+        int y = (current % floorSize) / width;
+        int dist = forwardDist[current] + 1;
+        int meet = -1;
+
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + DX[dir];
+            int ny = y + DY[dir];
+            if (nx >= 0 && nx < width && ny >= 0 && ny < height && tiles.get(floor, nx, ny) != '#') {
+                meet = better(meet, reachForward(current + DY[dir] * width + DX[dir], dist, (byte) (dir + 1)));
+            }
+        }
+        if (stairs) {
+            char tile = tiles.get(floor, x, y);
+            if (tile == 'U' && floor < floors - 1) {
+                meet = better(meet, reachForward(current + floorSize, dist, FROM_BELOW));
+            } else if (tile == 'D' && floor > 0) {
+                meet = better(meet, reachForward(current - floorSize, dist, FROM_ABOVE));
+            }
+        }
+        return meet;
+    }
+
+    // Rozwija komórkę od strony celu, czyli odwiedza komórki, z których da się na nią wejść
+    private int expandBackward(TileStore tiles, int current, int start, boolean stairs) {
+        int floor = current / floorSize;
+        int x = current % width;
+        int y = (current % floorSize) / width;
+        int dist = backwardDist[current] + 1;
+        int meet = -1;
+
+        // Na ścianę wchodzi się tylko schodami
+        if (tiles.get(floor, x, y) != '#') {
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x - DX[dir];
+                int ny = y - DY[dir];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+                    int previous = current - DY[dir] * width - DX[dir];
+                    if (tiles.get(floor, nx, ny) != '#' || previous == start || (stairs && Pathfinder.isLanding(tiles, floor, nx, ny))) {
+                        meet = better(meet, reachBackward(previous, dist, (byte) (dir + 1)));
+                    }
+                }
+            }
+        }
+        if (stairs) {
+            if (floor > 0 && tiles.get(floor - 1, x, y) == 'U') {
+                meet = better(meet, reachBackward(current - floorSize, dist, TO_ABOVE));
+            }
+            if (floor < floors - 1 && tiles.get(floor + 1, x, y) == 'D') {
+                meet = better(meet, reachBackward(current + floorSize, dist, TO_BELOW));
+            }
+        }
+        return meet;
+    }
+
+    private int reachForward(int cell, int dist, byte code) {
+        if (forwardStamp[cell] == search) {
+            return -1;
+        }
+        forwardStamp[cell] = search;
+        forwardDist[cell] = dist;
+        from[cell] = code;
+        forward.add(cell);
+        return backwardStamp[cell] == search ? cell : -1;
+    }
+
+    private int reachBackward(int cell, int dist, byte code) {
+        if (backwardStamp[cell] == search) {
+            return -1;
+        }
+        backwardStamp[cell] = search;
+        backwardDist[cell] = dist;
+        toGoal[cell] = code;
+        backward.add(cell);
+        return forwardStamp[cell] == search ? cell : -1;
+    }
+
+    private int better(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return forwardDist[b] + backwardDist[b] < forwardDist[a] + backwardDist[a] ? b : a;
+    }
+
+    // Następna komórka w stronę celu według toGoal[]
+    private int next(int cell) {
+        byte code = toGoal[cell];
+        if (code == TO_ABOVE) {
+            return cell + floorSize;
+        }
+        if (code == TO_BELOW) {
+            return cell - floorSize;
+        }
+        int dir = code - 1;
+        return cell + DY[dir] * width + DX[dir];
+    }
+
+    private void prepare(long cells) {
+        Pathfinder.checkCapacity(cells);
+        if (forwardStamp.length < cells) {
+            int size = (int) cells;
+            from = new byte[size];
+            toGoal = new byte[size];
+            forwardDist = new int[size];
+            backwardDist = new int[size];
+            forwardStamp = new int[size];
+            backwardStamp = new int[size];
+            search = 0;
+        }
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(forwardStamp, 0);
+            Arrays.fill(backwardStamp, 0);
+            search = 1;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// Warstwa bitów nad mapą: jeden bit na pole, osobna tablica long[] na piętro tworzona przy pierwszym zapisie.
+// Stan sesji (ślad, odwiedzone pola) siedzi w warstwach, więc kafelki lochu zostają nietknięte
+// i ten sam loch może obsłużyć wiele gier; reset sesji to wyzerowanie słów zamiast nowego lochu
+final class BitLayer {
+
+    private final int width, height;
+    private final long[][] bits;
+
+    BitLayer(int width, int height, int floors) {
+        this.width = width;
+        this.height = height;
+        bits = new long[floors][];
+    }
+
+    boolean get(int floor, int x, int y) {
+        long[] words = bits[floor];
+        int i = y * width + x;
+        return words != null && (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    // Zwraca true, jeśli bit był zgaszony
+    boolean set(int floor, int x, int y) {
+        long[] words = bits[floor];
+        if (words == null) {
+            words = bits[floor] = new long[(width * height + 63) >>> 6];
+        }
+        int i = y * width + x;
+        long mask = 1L << i;
+        if ((words[i >>> 6] & mask) != 0) {
+            return false;
+        }
+        words[i >>> 6] |= mask;
+        return true;
+    }
+
+    void clear(int floor, int x, int y) {
+        long[] words = bits[floor];
+        if (words != null) {
+            int i = y * width + x;
+            words[i >>> 6] &= ~(1L << i);
+        }
+    }
+
+    // Niezależna kopia, np. dla renderera na innym wątku
+    BitLayer copy() {
+        BitLayer copy = new BitLayer(width, height, bits.length);
+        for (int floor = 0; floor < bits.length; floor++) {
+            if (bits[floor] != null) {
+                copy.bits[floor] = bits[floor].clone();
+            }
+        }
+        return copy;
+    }
+
+    // Liczba zapalonych bitów na piętrze
+    int count(int floor) {
+        long[] words = bits[floor];
+        int count = 0;
+        if (words != null) {
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    // Tablice zostają do następnej sesji, zerujemy tylko piętra, które coś zapisały
+    void clear() {
+        for (long[] words : bits) {
+            if (words != null) {
+                Arrays.fill(words, 0L);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package dungeoncrawler;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Piętro podzielone na kawałki CHUNK_TILES x CHUNK_TILES kafelków, każdy narysowany do osobnego obrazu.
+// Obrazy trzymane w LRU o stałej pojemności, więc pamięć i koszt rysowania zależą od widoku, nie od mapy.
+// Wszystko poza renderowaniem w tle działa na wątku Swinga; wątek tła dostaje kopię kodów kafelków kawałka
+// zrobioną przy zleceniu i nie czyta mapy, którą wątek Swinga zmienia. Kawałek z tła jest przyjmowany tylko wtedy,
+// gdy od zlecenia nie zmienił się w nim żaden kafelek (wersja) ani nie wczytano nowego lochu (generacja).
+// Z mgłą wojny pola spoza explored nie są rysowane (zostaje czarne tło); odkrycie pola przychodzi jako tileChanged.
+final class ChunkImageCache {
+
+    static final int CHUNK_TILES = 16;
+    static final int CHUNK_SIZE = CHUNK_TILES * DungeonCrawler.TILE_SIZE;
+
+    // Kolory w kolejności kodów TileStore: '#', '.', 'P', 'G', 'U', 'D', 'T'
+    static final Color[] COLORS = {
+            Color.DARK_GRAY, Color.LIGHT_GRAY, Color.BLUE, Color.GREEN, Color.ORANGE, Color.PINK, Color.CYAN
+    };
+
+    private static final int TILE_SIZE = DungeonCrawler.TILE_SIZE;
+    private static final byte UNEXPLORED = -1;
+
+    private TileStore tiles;
+    private BitLayer explored; // null = cała mapa odkryta
+    private final int chunksX, chunksY;
+    private final LinkedHashMap<Long, BufferedImage> chunks;
+    private final Map<Long, Integer> versions = new HashMap<>();
+    private final Set<Long> pending = new HashSet<>();
+    private final ExecutorService prerender = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chunk-prerender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int generation;
+
+    ChunkImageCache(TileStore tiles, BitLayer explored, int viewColumns, int viewRows) {
+        this.tiles = tiles;
+        this.explored = explored;
+        chunksX = (tiles.width() + CHUNK_TILES - 1) / CHUNK_TILES;
+        chunksY = (tiles.height() + CHUNK_TILES - 1) / CHUNK_TILES;
+        // Widok z pierścieniem renderowanym w tle, z zapasem na poprzednią pozycję kamery
+        int capacity = 2 * (viewColumns / CHUNK_TILES + 3) * (viewRows / CHUNK_TILES + 3);
+        chunks = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Nowy loch (te same wymiary): wszystkie kawałki do odbudowy, zlecenia w toku zostaną odrzucone
+    void invalidate(TileStore tiles, BitLayer explored) {
+        this.tiles = tiles;
+        this.explored = explored;
+        generation++;
+        chunks.clear();
+        versions.clear();
+        pending.clear();
+    }
+
+    void tileChanged(int floor, int x, int y) {
+        long key = key(floor, x / CHUNK_TILES, y / CHUNK_TILES);
+        versions.merge(key, 1, Integer::sum);
+        BufferedImage image = chunks.get(key);
+        if (image != null) {
+            Graphics2D g = image.createGraphics();
+            paintTile(g, floor, x, y, x % CHUNK_TILES, y % CHUNK_TILES);
+            g.dispose();
+        }
+    }
+
+    // Rysuje kawałki przecinające obszar przycięcia; left/top to lewy górny kafelek widoku
+    void paint(Graphics g, int floor, int left, int top, int columns, int rows) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, columns * TILE_SIZE, rows * TILE_SIZE);
+        }
+        int x1 = Math.max(left * TILE_SIZE + clip.x, 0);
+        int y1 = Math.max(top * TILE_SIZE + clip.y, 0);
+        int x2 = Math.min(left * TILE_SIZE + Math.min(clip.x + clip.width, columns * TILE_SIZE), tiles.width() * TILE_SIZE);
+        int y2 = Math.min(top * TILE_SIZE + Math.min(clip.y + clip.height, rows * TILE_SIZE), tiles.height() * TILE_SIZE);
+        for (int cy = y1 / CHUNK_SIZE; cy * CHUNK_SIZE < y2; cy++) {
+            for (int cx = x1 / CHUNK_SIZE; cx * CHUNK_SIZE < x2; cx++) {
+                g.drawImage(chunk(floor, cx, cy), cx * CHUNK_SIZE - left * TILE_SIZE, cy * CHUNK_SIZE - top * TILE_SIZE, null);
+            }
+        }
+    }
+
+    // Zleca w tle kawałki widoku i pierścień wokół niego, których nie ma jeszcze w pamięci
+    void prefetch(int floor, int left, int top, int columns, int rows) {
+        int cx1 = Math.max(left / CHUNK_TILES - 1, 0);
+        int cy1 = Math.max(top / CHUNK_TILES - 1, 0);
+        int cx2 = Math.min((left + columns - 1) / CHUNK_TILES + 1, chunksX - 1);
+        int cy2 = Math.min((top + rows - 1) / CHUNK_TILES + 1, chunksY - 1);
+        for (int cy = cy1; cy <= cy2; cy++) {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                long key = key(floor, cx, cy);
+                if (!chunks.containsKey(key) && pending.add(key)) {
+                    int version = versions.getOrDefault(key, 0);
+                    int expected = generation;
+                    byte[] snapshot = snapshot(floor, cx, cy);
+                    int chunkColumns = columns(cx);
+                    prerender.execute(() -> {
+                        BufferedImage image = render(snapshot, chunkColumns);
+                        SwingUtilities.invokeLater(() -> install(key, image, version, expected));
+                    });
+                }
+            }
+        }
+    }
+
+    private void install(long key, BufferedImage image, int version, int expected) {
+        pending.remove(key);
+        if (expected == generation && version == versions.getOrDefault(key, 0) && !chunks.containsKey(key)) {
+            chunks.put(key, image);
+        }
+    }
+
+    private BufferedImage chunk(int floor, int cx, int cy) {
+        long key = key(floor, cx, cy);
+        BufferedImage image = chunks.get(key);
+        if (image == null) {
+            image = render(snapshot(floor, cx, cy), columns(cx));
+            chunks.put(key, image);
+        }
+        return image;
+    }
+
+    // Kody kafelków kawałka wiersz po wierszu, UNEXPLORED dla pól pod mgłą; robione na wątku Swinga
+    private byte[] snapshot(int floor, int cx, int cy) {
+        int columns = columns(cx);
+        int rows = Math.min(CHUNK_TILES, tiles.height() - cy * CHUNK_TILES);
+        byte[] codes = new byte[columns * rows];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                int tx = cx * CHUNK_TILES + x, ty = cy * CHUNK_TILES + y;
+                codes[y * columns + x] = explored != null && !explored.get(floor, tx, ty)
+                        ? UNEXPLORED : (byte) TileStore.code(tiles.get(floor, tx, ty));
+            }
+        }
+        return codes;
+    }
+
+    // Czyta tylko kopię, więc może działać na wątku tła
+    private static BufferedImage render(byte[] codes, int columns) {
+        int rows = codes.length / columns;
+        BufferedImage image = new BufferedImage(columns * TILE_SIZE, rows * TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] != UNEXPLORED) {
+                g.setColor(COLORS[codes[i]]);
+                g.fillRect(i % columns * TILE_SIZE, i / columns * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            }
+        }
+        g.dispose();
+        return image;
+    }
+
+    private int columns(int cx) {
+        return Math.min(CHUNK_TILES, tiles.width() - cx * CHUNK_TILES);
+    }
+
+    private void paintTile(Graphics2D g, int floor, int x, int y, int localX, int localY) {
+        if (explored != null && !explored.get(floor, x, y)) {
+            return;
+        }
+        g.setColor(COLORS[TileStore.code(tiles.get(floor, x, y))]);
+        g.fillRect(localX * TILE_SIZE, localY * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+    }
+
+    private long key(int floor, int cx, int cy) {
+        return ((long) floor * chunksY + cy) * chunksX + cx;
+    }
+}
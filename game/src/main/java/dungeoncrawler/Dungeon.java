@@ -0,0 +1,74 @@
+package dungeoncrawler;
+
+// Wygenerowany loch: kafelki wszystkich pięter, ziarno i położenie celu
+final class Dungeon {
+
+    final TileStore tiles;
+    final long seed;
+    final int goalFloor;
+    final int goalX, goalY;
+
+    final int width, height, floors;
+    final int floorSize;
+
+    // Z generatora od razu; dla lochów z pliku budowany przy pierwszym użyciu
+    private volatile FeatureIndex features;
+    // Odległości do celu dla auto-play, liczone przy pierwszym użyciu; mapa się nie zmienia, więc raz na loch
+    private volatile GoalDistanceField goalField;
+
+    Dungeon(TileStore tiles, long seed, int goalFloor, int goalX, int goalY) {
+        this(tiles, seed, goalFloor, goalX, goalY, null);
+    }
+
+    Dungeon(TileStore tiles, long seed, int goalFloor, int goalX, int goalY, FeatureIndex features) {
+        this.tiles = tiles;
+        this.seed = seed;
+        this.goalFloor = goalFloor;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.floors = tiles.floors();
+        this.height = tiles.height();
+        this.width = tiles.width();
+        this.floorSize = width * height;
+        this.features = features;
+    }
+
+    FeatureIndex features() {
+        FeatureIndex index = features;
+        if (index == null) {
+            features = index = FeatureIndex.scan(tiles);
+        }
+        return index;
+    }
+
+    // Wspólne dla wszystkich gier na tym lochu; dwa wątki mogą je policzyć naraz, wynik jest ten sam
+    GoalDistanceField goalField() {
+        GoalDistanceField field = goalField;
+        if (field == null) {
+            goalField = field = new GoalDistanceField(this);
+        }
+        return field;
+    }
+
+    // Liczba komórek wszystkich pięter; jednointowe kodowanie komórek działa tylko poniżej Integer.MAX_VALUE
+    long cellCount() {
+        return (long) floorSize * floors;
+    }
+
+    // Komórka zakodowana jako jeden int: (piętro * height + y) * width + x
+    int cell(int x, int y, int floor) {
+        return floor * floorSize + y * width + x;
+    }
+
+    int cellX(int cell) {
+        return cell % width;
+    }
+
+    int cellY(int cell) {
+        return (cell % floorSize) / width;
+    }
+
+    int cellFloor(int cell) {
+        return cell / floorSize;
+    }
+}
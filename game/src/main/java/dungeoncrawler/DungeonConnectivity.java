@@ -0,0 +1,399 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Spójne składowe otwartych komórek każdego piętra (union-find w jednym przebiegu po rastrze piętra)
+// i graf schodów między składowymi. Etykiety są lokalne dla piętra (indeks y * width + x) i trzymane
+// tylko dla dwóch pięter naraz, więc pamięć to 8 bajtów na pole jednego piętra, niezależnie od liczby pięter;
+// między piętrami przechodzą tylko krawędzie grafu schodów. Po jednym przebiegu pytanie "da się stąd dojść
+// do celu?" kosztuje O(1) na składową. Ruchy jak w BfsPathfinder: 'U'/'D' przenoszą na to samo x, y
+// sąsiedniego piętra, a ze ściany-lądowiska schodzi się na otwartych sąsiadów.
+final class DungeonConnectivity {
+
+    private final Dungeon d;
+    // Składowe piętra f mają numery [firstComponent[f], firstComponent[f + 1]); numeracja nie zależy od kolejności liczenia
+    private final int[] firstComponent;
+    private final int count;
+    private final int goalComponent;
+
+    // Etykiety dwóch ostatnio użytych pięter: numer składowej albo -1 dla ściany
+    private final int[][] cachedLabels = new int[2][];
+    private final int[] cachedFloor = { -1, -1 };
+    private int recent;
+
+    // Schody ('U' i 'D'), jedyne źródła krawędzi grafu składowych
+    private int[] stairFloor = new int[16], stairPos = new int[16], stairSource = new int[16];
+    private int stairCount;
+    // Krawędzie grafu składowych ze schodów edgeStair; from = -1 po zamianie schodów w drugą stronę
+    private int[] edgeStair = new int[16], edgeFrom = new int[16], edgeTo = new int[16];
+    private int edges;
+    // Liczba schodów od składowej do składowej celu, -1 = celu nie da się osiągnąć
+    private int[] goalHops;
+
+    DungeonConnectivity(Dungeon d) {
+        this.d = d;
+        firstComponent = new int[d.floors + 1];
+        int goal = -1;
+        int previousStair = 0;
+        for (int f = 0; f < d.floors; f++) {
+            int[] labels = labels(f);
+            int firstStair = stairCount;
+            for (int y = 0; y < d.height; y++) {
+                for (int x = 0; x < d.width; x++) {
+                    char tile = d.tiles.get(f, x, y);
+                    if (tile == 'U' || tile == 'D') {
+                        addStairCell(f, y * d.width + x, labels[y * d.width + x]);
+                    }
+                }
+            }
+            if (f == d.goalFloor) {
+                goal = labels[d.goalY * d.width + d.goalX];
+            }
+            // Piętra f - 1 i f są teraz w pamięci: schody w dół stąd i schody w górę z piętra niżej
+            for (int s = previousStair; s < stairCount; s++) {
+                char tile = d.tiles.get(stairFloor[s], stairPos[s] % d.width, stairPos[s] / d.width);
+                if (s >= firstStair ? tile == 'D' && f > 0 : tile == 'U') {
+                    link(s);
+                }
+            }
+            previousStair = firstStair;
+        }
+        count = firstComponent[d.floors];
+        goalComponent = goal;
+        computeReachability();
+    }
+
+    int componentCount() {
+        return count;
+    }
+
+    // Składowa pola piętra (y * width + x) albo -1 dla ściany; liczy etykiety piętra, jeśli ich nie ma w pamięci
+    int component(int floor, int pos) {
+        return labels(floor)[pos];
+    }
+
+    // Ile schodów dzieli składową od składowej celu; 0 = cel w tej składowej, -1 = celu nie da się osiągnąć
+    int goalHops(int component) {
+        return goalHops[component];
+    }
+
+    // Pola schodów składowej (w obrębie jej piętra), które prowadzą do składowej o jeden krok bliżej celu
+    void stairsTowardGoal(int component, IntQueue stairs) {
+        stairs.clear();
+        if (goalHops[component] <= 0) {
+            return;
+        }
+        for (int e = 0; e < edges; e++) {
+            if (edgeFrom[e] == component && goalHops[edgeTo[e]] == goalHops[component] - 1) {
+                stairs.add(stairPos[edgeStair[e]]);
+            }
+        }
+    }
+
+    // Cały loch jest poprawny, gdy z każdej składowej każdego piętra da się dojść do celu
+    boolean isValid() {
+        for (int c = 0; c < count; c++) {
+            if (goalHops[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Dokłada schody ze składowych odciętych od celu, zaczynając od pięter najbliższych celowi,
+    // żeby każde naprawione piętro było gotowym celem dla następnego. Schody stają na zwykłej podłodze
+    // (najpierw w ślepych zaułkach, jak w addStairs), a gdy podłogi nie ma (np. piętro z jednym polem),
+    // zastępują schody w złą stronę: ze składowej odciętej i tak nie prowadzą do celu. Składowe się nie
+    // zmieniają, więc wystarczy przeliczyć mały graf składowych. Zwraca false, jeśli jakiejś nie dało się podłączyć.
+    boolean repair(SplittableRandom rand) {
+        boolean progress = true;
+        while (progress && !isValid()) {
+            progress = false;
+            for (int distance = 0; distance < d.floors; distance++) {
+                for (int c = 0; c < count; c++) {
+                    int floor = floorOf(c);
+                    if (goalHops[c] < 0 && Math.abs(floor - d.goalFloor) == distance) {
+                        // Na piętrze celu (inna składowa) próbujemy obu kierunków; zamiana schodów na końcu
+                        boolean added = floor != d.goalFloor
+                                ? addStair(c, d.goalFloor > floor, false, rand) || addStair(c, d.goalFloor > floor, true, rand)
+                                : addStair(c, true, false, rand) || addStair(c, false, false, rand)
+                                        || addStair(c, true, true, rand) || addStair(c, false, true, rand);
+                        if (added) {
+                            progress = true;
+                            computeReachability();
+                        }
+                    }
+                }
+            }
+        }
+        return isValid();
+    }
+
+    // Schody ze składowej c piętro wyżej albo niżej, na lądowisko, z którego cel jest osiągalny;
+    // replace: zamiast na podłodze, w miejscu schodów w przeciwną stronę
+    private boolean addStair(int c, boolean up, boolean replace, SplittableRandom rand) {
+        int floor = floorOf(c);
+        int target = up ? floor + 1 : floor - 1;
+        if (target < 0 || target >= d.floors) {
+            return false;
+        }
+        int[] here = labels(floor);
+        int[] there = labels(target);
+
+        char stairs = up ? 'U' : 'D', opposite = up ? 'D' : 'U';
+        // Przebiegi: ślepe zaułki, potem dowolna podłoga (albo jeden po schodach do zamiany); wybór losowy wśród kandydatów
+        for (int pass = replace ? 2 : 0; pass < (replace ? 3 : 2); pass++) {
+            int candidates = 0, chosen = -1;
+            for (int pos = 0; pos < d.floorSize; pos++) {
+                if (here[pos] != c || !canReachGoal(there, pos)) {
+                    continue;
+                }
+                char tile = d.tiles.get(floor, pos % d.width, pos / d.width);
+                boolean candidate = pass == 2 ? tile == opposite : tile == '.' && (pass == 1 || isDeadEnd(floor, pos));
+                if (candidate && rand.nextInt(++candidates) == 0) {
+                    chosen = pos;
+                }
+            }
+            if (chosen >= 0) {
+                int s;
+                if (pass == 2) {
+                    d.features().stairsRemoved(floor, opposite);
+                    s = stairAt(floor, chosen);
+                    unlink(s);
+                } else {
+                    s = addStairCell(floor, chosen, c);
+                }
+                d.tiles.set(floor, chosen % d.width, chosen / d.width, stairs);
+                d.features().stairsPlaced(floor, chosen, stairs);
+                link(s);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Etykiety piętra z pamięci dwóch ostatnich albo policzone od nowa (te same numery co za pierwszym razem)
+    private int[] labels(int floor) {
+        for (int i = 0; i < 2; i++) {
+            if (cachedFloor[i] == floor) {
+                recent = i;
+                return cachedLabels[i];
+            }
+        }
+        int slot = 1 - recent;
+        if (cachedLabels[slot] == null) {
+            cachedLabels[slot] = new int[d.floorSize];
+        }
+        int[] labels = cachedLabels[slot];
+        firstComponent[floor + 1] = firstComponent[floor] + label(floor, labels);
+        cachedFloor[slot] = floor;
+        recent = slot;
+        return labels;
+    }
+
+    // Union-find w tej samej tablicy, która potem trzyma etykiety. Rodzic nigdy nie jest większy od komórki,
+    // więc korzeń (najmniejsza komórka składowej) dostaje numer, zanim zobaczymy resztę składowej,
+    // a łańcuch rodziców każdej późniejszej komórki kończy się na już ponumerowanej (ujemnej) komórce
+    private int label(int floor, int[] labels) {
+        for (int y = 0; y < d.height; y++) {
+            for (int x = 0; x < d.width; x++) {
+                int c = y * d.width + x;
+                if (d.tiles.get(floor, x, y) == '#') {
+                    labels[c] = -1;
+                    continue;
+                }
+                labels[c] = c;
+                if (x > 0 && labels[c - 1] >= 0) {
+                    union(labels, c - 1, c);
+                }
+                if (y > 0 && labels[c - d.width] >= 0) {
+                    union(labels, c - d.width, c);
+                }
+            }
+        }
+
+        // Numer składowej zapisany jako -(numer + 2), żeby nie mylić go z rodzicem ani ze ścianą
+        int components = 0;
+        for (int c = 0; c < d.floorSize; c++) {
+            if (labels[c] == -1) {
+                continue;
+            }
+            int root = c;
+            while (labels[root] >= 0 && labels[root] != root) {
+                root = labels[root];
+            }
+            labels[c] = labels[root] >= 0 ? -(firstComponent[floor] + components++ + 2) : labels[root];
+        }
+        for (int c = 0; c < d.floorSize; c++) {
+            if (labels[c] != -1) {
+                labels[c] = -labels[c] - 2;
+            }
+        }
+        return components;
+    }
+
+    private int floorOf(int component) {
+        int f = Arrays.binarySearch(firstComponent, component);
+        if (f < 0) {
+            return -f - 2;
+        }
+        // Puste piętra mają ten sam początek co następne
+        while (firstComponent[f + 1] == component) {
+            f++;
+        }
+        return f;
+    }
+
+    // Czy z pola (także ze ściany, na której wylądowały schody) da się dojść do celu
+    private boolean canReachGoal(int[] labels, int pos) {
+        if (labels[pos] >= 0) {
+            return goalHops[labels[pos]] >= 0;
+        }
+        int x = pos % d.width, y = pos / d.width;
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + Pathfinder.DX[dir], ny = y + Pathfinder.DY[dir];
+            if (nx >= 0 && nx < d.width && ny >= 0 && ny < d.height) {
+                int n = labels[ny * d.width + nx];
+                if (n >= 0 && goalHops[n] >= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int addStairCell(int floor, int pos, int source) {
+        if (stairCount == stairFloor.length) {
+            stairFloor = Arrays.copyOf(stairFloor, stairCount * 2);
+            stairPos = Arrays.copyOf(stairPos, stairCount * 2);
+            stairSource = Arrays.copyOf(stairSource, stairCount * 2);
+        }
+        stairFloor[stairCount] = floor;
+        stairPos[stairCount] = pos;
+        stairSource[stairCount] = source;
+        return stairCount++;
+    }
+
+    private int stairAt(int floor, int pos) {
+        for (int s = 0; s < stairCount; s++) {
+            if (stairFloor[s] == floor && stairPos[s] == pos) {
+                return s;
+            }
+        }
+        throw new IllegalStateException("No stairs at " + pos + " on floor " + floor);
+    }
+
+    // Krawędzie schodów s według ich obecnego kierunku; etykiety obu pięter muszą być w pamięci
+    private void link(int s) {
+        int floor = stairFloor[s], pos = stairPos[s];
+        int x = pos % d.width, y = pos / d.width;
+        char tile = d.tiles.get(floor, x, y);
+        int target;
+        if (tile == 'U' && floor < d.floors - 1) {
+            target = floor + 1;
+        } else if (tile == 'D' && floor > 0) {
+            target = floor - 1;
+        } else {
+            return;
+        }
+        int[] labels = labels(target);
+        // Lądowanie na podłodze albo na ścianie, z której schodzi się na otwartych sąsiadów
+        for (int k = -1; k < 4; k++) {
+            int lx = k < 0 ? x : x + Pathfinder.DX[k], ly = k < 0 ? y : y + Pathfinder.DY[k];
+            if (k >= 0 && (labels[pos] >= 0 || lx < 0 || lx >= d.width || ly < 0 || ly >= d.height)) {
+                continue;
+            }
+            int reached = labels[ly * d.width + lx];
+            if (reached >= 0) {
+                if (edges == edgeFrom.length) {
+                    edgeStair = Arrays.copyOf(edgeStair, edges * 2);
+                    edgeFrom = Arrays.copyOf(edgeFrom, edges * 2);
+                    edgeTo = Arrays.copyOf(edgeTo, edges * 2);
+                }
+                edgeStair[edges] = s;
+                edgeFrom[edges] = stairSource[s];
+                edgeTo[edges] = reached;
+                edges++;
+            }
+        }
+    }
+
+    private void unlink(int s) {
+        for (int e = 0; e < edges; e++) {
+            if (edgeStair[e] == s) {
+                edgeFrom[e] = -1;
+            }
+        }
+    }
+
+    private boolean isDeadEnd(int floor, int pos) {
+        int x = pos % d.width, y = pos / d.width;
+        int walls = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + Pathfinder.DX[dir], ny = y + Pathfinder.DY[dir];
+            if (nx < 0 || nx >= d.width || ny < 0 || ny >= d.height || d.tiles.get(floor, nx, ny) == '#') {
+                walls++;
+            }
+        }
+        return walls == 3;
+    }
+
+    // Wsteczne przejście po grafie składowych od celu (BFS, więc goalHops to najmniejsza liczba schodów)
+    private void computeReachability() {
+        // Krawędzie odwrócone w układzie CSR: dla każdej składowej lista składowych, które do niej prowadzą
+        int[] edgeCount = new int[count + 1];
+        for (int e = 0; e < edges; e++) {
+            if (edgeFrom[e] >= 0) {
+                edgeCount[edgeTo[e] + 1]++;
+            }
+        }
+        for (int c = 0; c < count; c++) {
+            edgeCount[c + 1] += edgeCount[c];
+        }
+        int[] sources = new int[edgeCount[count]];
+        int[] fill = Arrays.copyOf(edgeCount, count);
+        for (int e = 0; e < edges; e++) {
+            if (edgeFrom[e] >= 0) {
+                sources[fill[edgeTo[e]]++] = edgeFrom[e];
+            }
+        }
+
+        goalHops = new int[count];
+        Arrays.fill(goalHops, -1);
+        if (goalComponent < 0) {
+            return;
+        }
+        int[] queue = new int[count];
+        int head = 0, tail = 0;
+        goalHops[goalComponent] = 0;
+        queue[tail++] = goalComponent;
+        while (head < tail) {
+            int c = queue[head++];
+            for (int e = edgeCount[c]; e < edgeCount[c + 1]; e++) {
+                if (goalHops[sources[e]] < 0) {
+                    goalHops[sources[e]] = goalHops[c] + 1;
+                    queue[tail++] = sources[e];
+                }
+            }
+        }
+    }
+
+    private static int find(int[] parent, int c) {
+        while (parent[c] != c) {
+            parent[c] = parent[parent[c]];
+            c = parent[c];
+        }
+        return c;
+    }
+
+    // Korzeniem zostaje mniejszy indeks, co pozwala numerować składowe w jednym przebiegu
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a), rb = find(parent, b);
+        if (ra < rb) {
+            parent[rb] = ra;
+        } else if (rb < ra) {
+            parent[ra] = rb;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package dungeoncrawler;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+public class DungeonCrawler extends JPanel {
+
+    static final int TILE_SIZE = 32;
+    static final int LEGEND_WIDTH = 200;
+    private static final Font LEGEND_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font FLOOR_FONT = new Font("Arial", Font.BOLD, 25);
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final int OVERLAY_TOP = 340;
+    private static final int OVERLAY_HEIGHT = 180;
+
+    private final GameLoop loop;
+    private final boolean autoPlay;
+    private final Viewport viewport;
+    private final ChunkImageCache chunks;
+    private final BufferedImage legend = renderLegend();
+    // Lustro kafelków na wątku Swinga, aktualizowane z migawek pętli gry
+    private PackedTileStore view;
+    // Odkryte pola (mgła wojny), null = widać całą mapę
+    private BitLayer explored;
+    private int shownFloor;
+    private int playerX, playerY;
+    private int endedGame;
+    private int speed;
+    // Nakładka z metrykami (F3), odświeżana co pół sekundy tylko w swoim prostokącie
+    private boolean overlay;
+    private final javax.swing.Timer overlayTimer = new javax.swing.Timer(500, e -> repaintOverlay());
+
+    public DungeonCrawler() {
+        this(DungeonGame.DEFAULT_WIDTH, DungeonGame.DEFAULT_HEIGHT, DungeonGame.DEFAULT_FLOORS);
+    }
+
+    public DungeonCrawler(int width, int height, int floors) {
+        this(new DungeonGame(width, height, floors), null);
+    }
+
+    // replayFile != null: cała sesja trafia do zapisu, który można odtworzyć przez ReplayLog
+    DungeonCrawler(DungeonGame game, Path replayFile) {
+        int width = game.getWidth();
+        int height = game.getHeight();
+        // Okno nie większe niż domyślna mapa; większe mapy przewija kamera
+        viewport = new Viewport(width, height, DungeonGame.DEFAULT_WIDTH, DungeonGame.DEFAULT_HEIGHT);
+        // Pętla gry jeszcze nie działa, więc stan można odczytać bezpośrednio
+        game.setVisionRadius(DungeonGame.DEFAULT_VISION_RADIUS);
+        view = game.copyView();
+        explored = game.copyExplored();
+        chunks = new ChunkImageCache(view, explored, viewport.columns, viewport.rows);
+        shownFloor = game.getCurrentFloor();
+        playerX = game.getPlayerX();
+        playerY = game.getPlayerY();
+        viewport.follow(playerX, playerY);
+        setPreferredSize(new Dimension((viewport.columns * TILE_SIZE) + LEGEND_WIDTH, viewport.rows * TILE_SIZE));
+        setBackground(Color.BLACK);
+        setFocusable(true);
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_F3) {
+                    toggleOverlay();
+                } else if (e.getKeyCode() == KeyEvent.VK_F4) {
+                    GameLog.setEnabled(!GameLog.isEnabled());
+                    repaintOverlay();
+                } else if (autoPlay) {
+                    changeSpeed(e.getKeyCode());
+                } else if (e.getKeyCode() == KeyEvent.VK_SPACE) {
+                    loop.submit(GameLoop.STAIRS);
+                } else {
+                    movePlayer(e.getKeyCode());
+                }
+            }
+        });
+
+        // Zapytaj gracza czy chce grać ręcznie, czy automatycznie
+        int option = JOptionPane.showOptionDialog(this,
+                "Wybierz tryb gry",
+                "Dungeon Crawler",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                new Object[]{"Manual", "Auto"},
+                "Manual");
+
+        autoPlay = option == 1;
+        // Szukanie drogi i kroki auto-play działają na wątku pętli; tutaj trafiają tylko gotowe migawki
+        // Restart po oknie dialogowym bierze gotowy loch zamiast generować go na wątku gry
+        game.usePool(2, 60_000);
+        ReplayLog.Writer recorder = null;
+        if (replayFile != null) {
+            try {
+                recorder = new ReplayLog.Writer(replayFile, game, autoPlay);
+            } catch (IOException e) {
+                System.err.println("Replay log disabled: " + e.getMessage());
+            }
+        }
+        loop = new GameLoop(game, autoPlay, snapshot -> SwingUtilities.invokeLater(() -> apply(snapshot)), recorder);
+        loop.start();
+    }
+
+    private void restartGame() {
+        loop.submit(GameLoop.RESTART);
+    }
+
+    private void movePlayer(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_W:
+            case KeyEvent.VK_UP:
+                loop.submit(GameLoop.UP);
+                break;
+            case KeyEvent.VK_S:
+            case KeyEvent.VK_DOWN:
+                loop.submit(GameLoop.DOWN);
+                break;
+            case KeyEvent.VK_A:
+            case KeyEvent.VK_LEFT:
+                loop.submit(GameLoop.LEFT);
+                break;
+            case KeyEvent.VK_D:
+            case KeyEvent.VK_RIGHT:
+                loop.submit(GameLoop.RIGHT);
+                break;
+        }
+    }
+
+    // Plus/minus zmienia tempo auto-play: 20, 10, 5, 1 ms na krok albo bez ograniczeń
+    private void changeSpeed(int keyCode) {
+        if (keyCode == KeyEvent.VK_PLUS || keyCode == KeyEvent.VK_EQUALS || keyCode == KeyEvent.VK_ADD) {
+            speed = Math.min(speed + 1, GameLoop.STEP_NANOS.length - 1);
+        } else if (keyCode == KeyEvent.VK_MINUS || keyCode == KeyEvent.VK_SUBTRACT) {
+            speed = Math.max(speed - 1, 0);
+        } else {
+            return;
+        }
+        loop.setStepNanos(GameLoop.STEP_NANOS[speed]);
+        repaint(viewport.columns * TILE_SIZE, 680, LEGEND_WIDTH, 40);
+    }
+
+    private void apply(GameLoop.Snapshot snapshot) {
+        if (snapshot.tiles != null) {
+            view = snapshot.tiles;
+            explored = snapshot.explored;
+            chunks.invalidate(view, explored);
+            repaint();
+        }
+        int width = view.width();
+        int floorSize = width * view.height();
+        for (int i = 0; i < snapshot.changedCells.length; i++) {
+            int cell = snapshot.changedCells[i];
+            int floor = cell / floorSize;
+            int x = cell % width;
+            int y = (cell % floorSize) / width;
+            view.set(floor, x, y, snapshot.changedTiles[i]);
+            if (explored != null) {
+                explored.set(floor, x, y);
+            }
+            chunks.tileChanged(floor, x, y);
+            // Odświeżamy tylko zmienione kafelki zamiast całego panelu
+            if (floor == shownFloor && viewport.contains(x, y)) {
+                repaint((x - viewport.left()) * TILE_SIZE, (y - viewport.top()) * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            }
+        }
+        playerX = snapshot.playerX;
+        playerY = snapshot.playerY;
+        refreshFloor(snapshot.floor);
+
+        if ((snapshot.won || snapshot.finished) && snapshot.game != endedGame) {
+            // Okno dialogowe obsługuje zdarzenia, więc kolejne migawki nie mogą go otworzyć drugi raz
+            endedGame = snapshot.game;
+            if (snapshot.won) {
+                showVictoryDialog();
+            } else {
+                showGameOverDialog();
+            }
+        }
+    }
+
+    private void showGameOverDialog() {
+        int option = JOptionPane.showOptionDialog(this,
+                "You have reached the end of the auto path. Do you want to play again?",
+                "Game Over",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.INFORMATION_MESSAGE,
+                null,
+                new Object[]{"Yes", "No"},
+                "Yes");
+
+        if (option == JOptionPane.YES_OPTION) {
+            restartGame();
+        } else {
+            System.exit(0);
+        }
+    }
+
+
+    private void showVictoryDialog() {
+        int option = JOptionPane.showOptionDialog(this,
+                "Congratulations! You've reached the goal. Do you want to play again?",
+                "Victory!",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.INFORMATION_MESSAGE,
+                null,
+                new Object[]{"Yes", "No"},
+                "Yes");
+
+        if (option == JOptionPane.YES_OPTION) {
+            restartGame();
+        } else {
+            System.exit(0);
+        }
+    }
+
+    // Zmiana piętra albo przesunięcie kamery wymaga narysowania całego widoku; zwykłe kroki odświeżył już listener
+    private void refreshFloor(int floor) {
+        boolean moved = viewport.follow(playerX, playerY);
+        if (moved || floor != shownFloor) {
+            repaint(0, 0, viewport.columns * TILE_SIZE, viewport.rows * TILE_SIZE);
+        }
+        if (floor != shownFloor) {
+            shownFloor = floor;
+            repaint(viewport.columns * TILE_SIZE, 720, LEGEND_WIDTH, 40);
+        }
+        chunks.prefetch(shownFloor, viewport.left(), viewport.top(), viewport.columns, viewport.rows);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        super.paintComponent(g);
+
+        // Mapa z obrazów kawałków, tylko w obszarze przycięcia
+        chunks.paint(g, shownFloor, viewport.left(), viewport.top(), viewport.columns, viewport.rows);
+
+        // Draw floor counter
+        drawFloorCounter(g);
+        if (autoPlay) {
+            drawSpeed(g);
+        }
+
+        // Draw legend
+        g.drawImage(legend, viewport.columns * TILE_SIZE, 0, null);
+        if (overlay) {
+            drawOverlay(g);
+        }
+
+        GameMetrics.GLOBAL.paintNanos.record(System.nanoTime() - start);
+    }
+
+    private void toggleOverlay() {
+        overlay = !overlay;
+        if (overlay) {
+            overlayTimer.start();
+        } else {
+            overlayTimer.stop();
+        }
+        repaintOverlay();
+    }
+
+    private void repaintOverlay() {
+        repaint(viewport.columns * TILE_SIZE, OVERLAY_TOP, LEGEND_WIDTH, OVERLAY_HEIGHT);
+    }
+
+    private void drawOverlay(Graphics g) {
+        GameMetrics m = GameMetrics.GLOBAL;
+        String[] lines = {
+                "gen    p50/p99 " + m.getGenerationP50Micros() + "/" + m.getGenerationP99Micros() + " us",
+                "search p50/p99 " + m.getSearchP50Micros() + "/" + m.getSearchP99Micros() + " us",
+                "nodes/search   " + Math.round(m.getNodesPerSearch()),
+                "paint  p50/p99 " + m.getPaintP50Micros() + "/" + m.getPaintP99Micros() + " us",
+                "steps/s        " + Math.round(m.getStepsPerSecond()),
+                "alloc/tick p50 " + m.getTickAllocationP50Bytes() + " B",
+                "alloc/tick p99 " + m.getTickAllocationP99Bytes() + " B",
+                "log (F4)       " + (GameLog.isEnabled() ? "on" : "off") + ", dropped " + m.getDroppedLogMessages(),
+        };
+        int x = viewport.columns * TILE_SIZE + 10;
+        g.setColor(Color.WHITE);
+        g.setFont(OVERLAY_FONT);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], x, OVERLAY_TOP + 15 + i * 18);
+        }
+    }
+
+    private void drawFloorCounter(Graphics g) {
+        int legendX = viewport.columns * TILE_SIZE + 10;
+        g.setColor(Color.WHITE);
+        g.setFont(FLOOR_FONT);
+        g.drawString("Current Floor: " + (shownFloor + 1), legendX, 750);
+    }
+
+    private void drawSpeed(Graphics g) {
+        long stepNanos = GameLoop.STEP_NANOS[speed];
+        g.setColor(Color.WHITE);
+        g.setFont(LEGEND_FONT);
+        g.drawString("Speed (+/-): " + (stepNanos == 0 ? "max" : stepNanos / 1_000_000 + " ms"),
+                viewport.columns * TILE_SIZE + 10, 705);
+    }
+
+    // Legenda się nie zmienia, więc rysujemy ją raz do obrazu
+    private static BufferedImage renderLegend() {
+        BufferedImage image = new BufferedImage(LEGEND_WIDTH, 320, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        int legendX = 10;
+
+        g.setColor(Color.WHITE);
+        g.setFont(LEGEND_FONT);
+        g.drawString("Legend", legendX, 20);
+
+        String[] labels = { "Wall", "Path", "Player", "Goal", "Stairs Up", "Stairs Down", "Traveled Path" };
+        for (int i = 0; i < labels.length; i++) {
+            int top = 40 + i * 40;
+            g.setColor(ChunkImageCache.COLORS[i]);
+            g.fillRect(legendX, top, TILE_SIZE, TILE_SIZE);
+            g.setColor(i == 1 ? Color.BLACK : Color.WHITE);
+            g.drawString(labels[i], legendX + TILE_SIZE + 10, top + 20);
+        }
+        g.dispose();
+        return image;
+    }
+
+
+    // Użycie: java DungeonCrawler [width height floors [seed [replay-file]]], domyślnie 42 x 24 x 5 i losowe ziarno
+    public static void main(String[] args) {
+        int width = args.length > 2 ? Integer.parseInt(args[0]) : DungeonGame.DEFAULT_WIDTH;
+        int height = args.length > 2 ? Integer.parseInt(args[1]) : DungeonGame.DEFAULT_HEIGHT;
+        int floors = args.length > 2 ? Integer.parseInt(args[2]) : DungeonGame.DEFAULT_FLOORS;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : new SplittableRandom().nextLong();
+        Path replayFile = args.length > 4 ? Path.of(args[4]) : null;
+        System.out.println("Seed: " + seed);
+        GameMetrics.registerMBean();
+
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Dungeon Crawler");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.setResizable(false);
+
+            DungeonCrawler game = new DungeonCrawler(new DungeonGame(seed, width, height, floors), replayFile);
+            frame.add(game);
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+        });
+    }
+}
@@ -0,0 +1,244 @@
+package dungeoncrawler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Binarny format lochu, żeby raz wygenerowane korpusy map dało się otwierać wielokrotnie.
+// Nagłówek (little-endian): magic, wersja, wymiary, cel, ziarno, offset kafelków, potem indeks schodów:
+// dla każdego piętra liczba 'U' i liczba 'D', a za nimi wszystkie ich komórki (y * width + x), piętro po piętrze.
+// Kafelki od offsetu wyrównanego do 4 KB w układzie MappedTileStore; czytane są wprost z mapowania.
+// Otwarcie czyta tylko nagłówek: indeks cech lochu powstaje z indeksu schodów, a pola startowe są losowane z mapowania.
+final class DungeonFile {
+
+    private static final int MAGIC = 0x31474E44; // "DNG1"
+    private static final int VERSION = 3;
+    private static final int FIXED_HEADER = 48;
+    private static final int PAGE = 4096;
+    // Półbajty kodów 'U' (4) i 'D' (5): różnią się tylko najmłodszym bitem
+    private static final long NIBBLE_LOW = 0x1111111111111111L;
+    private static final long STAIR_PATTERN = 0x4444444444444444L;
+    private static final long STAIR_MASK = 0xEEEEEEEEEEEEEEEEL;
+
+    final Dungeon dungeon;
+    // Komórki schodów każdego piętra, wszystkie (także dołożone przez naprawę spójności)
+    final int[][] upStairs;
+    final int[][] downStairs;
+
+    private DungeonFile(Dungeon dungeon, int[][] upStairs, int[][] downStairs) {
+        this.dungeon = dungeon;
+        this.upStairs = upStairs;
+        this.downStairs = downStairs;
+    }
+
+    static void write(Dungeon dungeon, Path path) throws IOException {
+        TileStore tiles = dungeon.tiles;
+        int width = dungeon.width, height = dungeon.height, floors = dungeon.floors;
+        int[][] up = new int[floors][];
+        int[][] down = new int[floors][];
+        long stairCount = indexStairs(tiles, up, down);
+        long payloadOffset = payloadOffset(floors, stairCount);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedTileStore out = new MappedTileStore(channel, FileChannel.MapMode.READ_WRITE, payloadOffset,
+                    width, height, floors);
+
+            for (int f = 0; f < floors; f++) {
+                if (tiles instanceof PackedTileStore) {
+                    // Ten sam układ bitów: słowa idą na dysk bez rozpakowywania
+                    PackedTileStore packed = (PackedTileStore) tiles;
+                    int words = packed.wordsPerFloor();
+                    for (int w = 0; w < words; w++) {
+                        out.putWord(f, w, packed.word(f, w));
+                    }
+                } else {
+                    for (int y = 0; y < height; y++) {
+                        for (int x = 0; x < width; x++) {
+                            out.set(f, x, y, tiles.get(f, x, y));
+                        }
+                    }
+                }
+            }
+            out.force();
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, payloadOffset);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putInt(width).putInt(height).putInt(floors)
+                    .putInt(dungeon.goalFloor).putInt(dungeon.goalX).putInt(dungeon.goalY)
+                    .putLong(dungeon.seed).putLong(payloadOffset);
+            for (int f = 0; f < floors; f++) {
+                header.putInt(up[f].length).putInt(down[f].length);
+            }
+            for (int f = 0; f < floors; f++) {
+                for (int cell : up[f]) {
+                    header.putInt(cell);
+                }
+                for (int cell : down[f]) {
+                    header.putInt(cell);
+                }
+            }
+            header.force();
+        }
+    }
+
+    // Kafelki zostają w mapowaniu tylko do odczytu, więc otwarcie nie zależy od rozmiaru lochu, a pliki
+    // bez prawa zapisu (np. współdzielone korpusy) też się otwierają; gra nie pisze do mapy lochu
+    static DungeonFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, fixed, 0);
+            if (fixed.getInt() != MAGIC) {
+                throw new IOException("Not a dungeon file: " + path);
+            }
+            int version = fixed.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported dungeon file version " + version + ": " + path);
+            }
+            int width = fixed.getInt();
+            int height = fixed.getInt();
+            int floors = fixed.getInt();
+            int goalFloor = fixed.getInt();
+            int goalX = fixed.getInt();
+            int goalY = fixed.getInt();
+            long seed = fixed.getLong();
+            long payloadOffset = fixed.getLong();
+
+            long expected = payloadOffset + MappedTileStore.floorBytes(width, height) * floors;
+            if (payloadOffset < FIXED_HEADER + 2L * Integer.BYTES * floors || channel.size() < expected) {
+                throw new IOException("Truncated dungeon file: " + path);
+            }
+
+            ByteBuffer counts = ByteBuffer.allocate(2 * Integer.BYTES * floors).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, counts, FIXED_HEADER);
+            int[][] up = new int[floors][];
+            int[][] down = new int[floors][];
+            long stairCount = 0;
+            for (int f = 0; f < floors; f++) {
+                up[f] = new int[counts.getInt()];
+                down[f] = new int[counts.getInt()];
+                stairCount += up[f].length + down[f].length;
+            }
+            if (payloadOffset != payloadOffset(floors, stairCount)) {
+                throw new IOException("Corrupt stair index: " + path);
+            }
+            ByteBuffer cells = ByteBuffer.allocate((int) (stairCount * Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, cells, FIXED_HEADER + counts.capacity());
+            for (int f = 0; f < floors; f++) {
+                for (int i = 0; i < up[f].length; i++) {
+                    up[f][i] = cells.getInt();
+                }
+                for (int i = 0; i < down[f].length; i++) {
+                    down[f][i] = cells.getInt();
+                }
+            }
+
+            // Mapowanie pozostaje ważne po zamknięciu kanału
+            TileStore tiles = new MappedTileStore(channel, FileChannel.MapMode.READ_ONLY, payloadOffset, width, height, floors);
+            FeatureIndex features = FeatureIndex.sampled(tiles, up, down, goalFloor, goalY * width + goalX);
+            return new DungeonFile(new Dungeon(tiles, seed, goalFloor, goalX, goalY, features), up, down);
+        }
+    }
+
+    // Wszystkie schody lochu, piętro po piętrze w kolejności rastra; zwraca ich łączną liczbę
+    private static long indexStairs(TileStore tiles, int[][] up, int[][] down) {
+        IntQueue ups = new IntQueue();
+        IntQueue downs = new IntQueue();
+        long count = 0;
+        for (int f = 0; f < tiles.floors(); f++) {
+            ups.clear();
+            downs.clear();
+            if (tiles instanceof PackedTileStore) {
+                // Szesnaście półbajtów naraz: słowo bez schodów odpada po kilku operacjach
+                PackedTileStore packed = (PackedTileStore) tiles;
+                int words = packed.wordsPerFloor();
+                for (int w = 0; w < words; w++) {
+                    long word = packed.word(f, w);
+                    long t = (word ^ STAIR_PATTERN) & STAIR_MASK;
+                    long stairs = ~(t | t >>> 1 | t >>> 2 | t >>> 3) & NIBBLE_LOW;
+                    while (stairs != 0) {
+                        int shift = Long.numberOfTrailingZeros(stairs);
+                        int cell = w * 16 + shift / 4;
+                        ((word >>> shift & 1) == 0 ? ups : downs).add(cell);
+                        stairs &= stairs - 1;
+                    }
+                }
+            } else {
+                for (int y = 0; y < tiles.height(); y++) {
+                    for (int x = 0; x < tiles.width(); x++) {
+                        char tile = tiles.get(f, x, y);
+                        if (tile == 'U') {
+                            ups.add(y * tiles.width() + x);
+                        } else if (tile == 'D') {
+                            downs.add(y * tiles.width() + x);
+                        }
+                    }
+                }
+            }
+            up[f] = ups.toArray();
+            down[f] = downs.toArray();
+            count += up[f].length + down[f].length;
+        }
+        return count;
+    }
+
+    private static long payloadOffset(int floors, long stairs) {
+        long header = FIXED_HEADER + 2L * Integer.BYTES * floors + stairs * Integer.BYTES;
+        return (header + PAGE - 1) / PAGE * PAGE;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of dungeon file");
+            }
+        }
+        buffer.flip();
+    }
+
+    // Użycie: java DungeonFile write plik [seed] [width height floors] [mode]
+    //         java DungeonFile play plik [seed]
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        if (args[0].equals("write")) {
+            int width = args.length > 5 ? Integer.parseInt(args[3]) : DungeonGame.DEFAULT_WIDTH;
+            int height = args.length > 5 ? Integer.parseInt(args[4]) : DungeonGame.DEFAULT_HEIGHT;
+            int floors = args.length > 5 ? Integer.parseInt(args[5]) : DungeonGame.DEFAULT_FLOORS;
+            MazeCarver.Mode mode = args.length > 6 ? MazeCarver.Mode.valueOf(args[6]) : MazeCarver.Mode.RECURSIVE_BACKTRACKER;
+
+            long start = System.nanoTime();
+            Dungeon dungeon = DungeonGenerator.generate(seed, width, height, floors, mode);
+            long generated = System.nanoTime();
+            write(dungeon, path);
+            System.out.printf("Generated %dx%dx%d in %.3f s, written in %.3f s%n", width, height, floors,
+                    (generated - start) / 1e9, (System.nanoTime() - generated) / 1e9);
+            return;
+        }
+
+        long start = System.nanoTime();
+        DungeonFile file = open(path);
+        long opened = System.nanoTime();
+        Dungeon dungeon = file.dungeon;
+        DungeonGame game = new DungeonGame(dungeon, seed);
+        game.setLogging(false);
+        game.setAutoPlay(true);
+        long planned = System.nanoTime();
+        long maxSteps = 100 * dungeon.cellCount();
+        while (game.getSteps() < maxSteps && game.autoStep()) {
+            // Gramy do wygranej albo do końca ścieżki
+        }
+
+        System.out.printf("Opened %dx%dx%d in %.3f ms, path planned in %.3f s%n", dungeon.width, dungeon.height,
+                dungeon.floors, (opened - start) / 1e6, (planned - opened) / 1e9);
+        System.out.println("Steps: " + game.getSteps() + ", won: " + game.isGameWon());
+    }
+}
@@ -0,0 +1,554 @@
+package dungeoncrawler;
+
+import java.util.*;
+
+// Stan i logika gry bez zależności od Swinga (generowanie, ruch, zmiana piętra, auto-play)
+public class DungeonGame {
+
+    // Powiadomienia o zmianach kafelków, np. dla renderera, który odświeża tylko zmienione pola
+    interface TileListener {
+        void tileChanged(int floor, int x, int y);
+
+        void dungeonLoaded();
+    }
+
+    static final int DEFAULT_WIDTH = 42;
+    static final int DEFAULT_HEIGHT = 24;
+    static final int DEFAULT_FLOORS = 5;
+    static final int PLAYER_START_FLOOR = 2;
+    static final int DEFAULT_VISION_RADIUS = 8;
+    private static final int FOV_CACHE_SIZE = 4096;
+    private static final int BFS_PLANS_BEFORE_GRAPH = 3;
+
+    // Jedno ziarno steruje całą grą: lochy (także po restarcie), pozycje startowe i lądowania po schodach
+    private final long seed;
+    private final SplittableRandom rand;
+    // Ziarna lochów osobnym strumieniem, niezależnym od przebiegu gry, żeby pula mogła je generować z wyprzedzeniem
+    private final SplittableRandom dungeonSeeds;
+    private DungeonPool pool;
+    private final int width, height, floors;
+    // > 0: piętra generowane leniwie (LazyTileStore), najwyżej tyle naraz w pamięci
+    private final int residentFloors;
+
+    // Mapa lochu tylko do odczytu; gracz i ślad to stan sesji w osobnych warstwach
+    private Dungeon dungeon;
+    private TileStore tiles;
+    private FeatureIndex features;
+    private PlayerPosition player;
+    private BitLayer trail;   // pola pokazywane jako 'T'
+    private BitLayer visited; // każde pole, na którym stał gracz (także schody i lądowania)
+    // Mgła wojny (gdy visionRadius > 0): pola widoczne z bieżącej pozycji i wszystkie kiedyś widziane
+    private int visionRadius;
+    private FieldOfView fov;
+    private BitLayer visible, explored;
+    private int[] visibleCells = new int[0];
+    private int visibleFloor;
+    private int goalX, goalY;
+    private boolean gameWon;
+    private boolean onStairTile;
+    private boolean autoPlay;
+    private boolean logging = true;
+    private long steps;
+
+    private int previousFloor;
+    private TileListener listener;
+
+    // null: auto-play czyta kierunek z pola odległości lochu (jedno BFS wstecz od celu na loch), bez planowania
+    // po każdej zmianie piętra; ustawiony pathfinder planuje trasy jak dawniej (np. do porównań w HeadlessSimulation)
+    private Pathfinder pathfinder;
+    private GoalDistanceField goalField; // pole bieżącego lochu, gdy auto-play z niego korzysta
+    private final IntQueue autoPath = new IntQueue();
+    // Graf schodów (tylko z pathfinderem) budowany dopiero po kilku planach; mapa się nie zmienia, więc żyje do końca lochu
+    private StairGraph stairGraph;
+    // Auto-play bez pola odległości (loch z pliku albo za duży na pole), budowany przy pierwszym planie
+    private StairRoute stairRoute;
+    private int bfsPlans;
+
+    public DungeonGame() {
+        this(new SplittableRandom().nextLong(), DEFAULT_WIDTH, DEFAULT_HEIGHT, DEFAULT_FLOORS);
+    }
+
+    public DungeonGame(int width, int height, int floors) {
+        this(new SplittableRandom().nextLong(), width, height, floors);
+    }
+
+    public DungeonGame(long seed) {
+        this(seed, DEFAULT_WIDTH, DEFAULT_HEIGHT, DEFAULT_FLOORS);
+    }
+
+    // Gra na gotowym lochu (np. z równoległej partii); ziarno steruje pozycją startową i teleportami
+    public DungeonGame(Dungeon dungeon, long seed) {
+        this.seed = seed;
+        this.rand = new SplittableRandom(seed);
+        this.dungeonSeeds = new SplittableRandom(seed).split();
+        this.width = dungeon.width;
+        this.height = dungeon.height;
+        this.floors = dungeon.floors;
+        this.residentFloors = 0;
+        loadDungeon(dungeon);
+    }
+
+    public DungeonGame(long seed, int width, int height, int floors) {
+        this(seed, width, height, floors, 0);
+    }
+
+    // Start kosztuje jedno piętro niezależnie od ich liczby; pamięć ograniczona do residentFloors pięter
+    public DungeonGame(long seed, int width, int height, int floors, int residentFloors) {
+        this.seed = seed;
+        this.rand = new SplittableRandom(seed);
+        this.dungeonSeeds = new SplittableRandom(seed).split();
+        this.width = width;
+        this.height = height;
+        this.floors = floors;
+        this.residentFloors = residentFloors;
+        generateDungeons();
+    }
+
+    // Nowy loch (z puli albo z kolejnego ziarna)
+    void restart() {
+        if (pool != null) {
+            loadDungeon(pool.take());
+        } else {
+            generateDungeons();
+        }
+        if (autoPlay) {
+            findShortestPathToGoal();
+        }
+    }
+
+    // Ta sama mapa od nowa: wyzerowane warstwy i nowa pozycja startowa, bez generowania
+    void resetSession() {
+        startSession();
+        if (autoPlay) {
+            findShortestPathToGoal();
+        }
+    }
+
+    // Kolejne lochy z puli generowanej w tle, te same ziarna co bez puli; pole odległości do celu
+    // liczone w tle razem z lochem, a trasy są takie same jak bez puli
+    DungeonPool usePool(int size, long maxIdleMillis) {
+        // Leniwy loch startuje od jednego piętra, pula nie ma czego przyspieszać
+        if (pool == null && residentFloors == 0) {
+            pool = new DungeonPool(width, height, floors, dungeonSeeds, size, maxIdleMillis);
+        }
+        return pool;
+    }
+
+    void setAutoPlay(boolean autoPlay) {
+        this.autoPlay = autoPlay;
+        autoPath.clear();
+        goalField = null;
+        if (autoPlay) {
+            findShortestPathToGoal();
+        }
+    }
+
+    // Promień widzenia; 0 wyłącza mgłę wojny (widać całą mapę, nic nie jest liczone)
+    void setVisionRadius(int radius) {
+        visionRadius = radius;
+        fov = radius > 0 ? new FieldOfView(tiles, radius, FOV_CACHE_SIZE) : null;
+        if (radius > 0 && visible == null) {
+            visible = new BitLayer(width, height, floors);
+            explored = new BitLayer(width, height, floors);
+        }
+        visibleCells = new int[0];
+        if (fov != null) {
+            updateVision();
+        }
+    }
+
+    int getVisionRadius() {
+        return visionRadius;
+    }
+
+    FieldOfView getFieldOfView() {
+        return fov;
+    }
+
+    // null wraca do pola odległości; nowy tryb obowiązuje od następnego planu (setAutoPlay, zmiana piętra)
+    void setPathfinder(Pathfinder pathfinder) {
+        this.pathfinder = pathfinder;
+        goalField = null;
+        autoPath.clear();
+    }
+
+    Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    void setTileListener(TileListener listener) {
+        this.listener = listener;
+    }
+
+    void setLogging(boolean logging) {
+        this.logging = logging;
+    }
+
+    boolean isAutoPlay() {
+        return autoPlay;
+    }
+
+    boolean hasAutoPath() {
+        if (goalField != null) {
+            return !gameWon && goalField.nextCell(playerCell()) >= 0;
+        }
+        return !autoPath.isEmpty();
+    }
+
+    int getAutoPathLength() {
+        if (goalField != null) {
+            return Math.max(0, goalField.distance(playerCell()));
+        }
+        return autoPath.size();
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    Dungeon getDungeon() {
+        return dungeon;
+    }
+
+    // Pole tak, jak widzi je gracz: pozycja i ślad z warstw sesji nad niezmienioną mapą lochu
+    char tileAt(int floor, int x, int y) {
+        if (!onStairTile && player.isAt(floor, x, y)) {
+            return 'P';
+        }
+        if (trail.get(floor, x, y)) {
+            return 'T';
+        }
+        return tiles.get(floor, x, y);
+    }
+
+    // Kopia mapy z naniesionym śladem i graczem, np. na lustro kafelków renderera po wczytaniu lochu
+    PackedTileStore copyView() {
+        PackedTileStore view = PackedTileStore.copyOf(tiles);
+        for (int floor = 0; floor < floors; floor++) {
+            if (trail.count(floor) == 0) {
+                continue;
+            }
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (trail.get(floor, x, y)) {
+                        view.set(floor, x, y, 'T');
+                    }
+                }
+            }
+        }
+        if (!onStairTile) {
+            view.set(player.floor, player.x, player.y, 'P');
+        }
+        return view;
+    }
+
+    boolean isVisited(int floor, int x, int y) {
+        return visited.get(floor, x, y);
+    }
+
+    int visitedCount(int floor) {
+        return visited.count(floor);
+    }
+
+    // Bez mgły wojny wszystko jest widoczne i odkryte
+    boolean isVisible(int floor, int x, int y) {
+        return fov == null || visible.get(floor, x, y);
+    }
+
+    boolean isExplored(int floor, int x, int y) {
+        return fov == null || explored.get(floor, x, y);
+    }
+
+    // Kopia odkrytych pól dla renderera albo null bez mgły wojny
+    BitLayer copyExplored() {
+        return fov == null ? null : explored.copy();
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getFloors() {
+        return floors;
+    }
+
+    PlayerPosition getPosition() {
+        return player;
+    }
+
+    int getCurrentFloor() {
+        return player.floor;
+    }
+
+    int getPlayerX() {
+        return player.x;
+    }
+
+    int getPlayerY() {
+        return player.y;
+    }
+
+    boolean isGameWon() {
+        return gameWon;
+    }
+
+    boolean isOnStairTile() {
+        return onStairTile;
+    }
+
+    long getSteps() {
+        return steps;
+    }
+
+    private void generateDungeons() {
+        if (residentFloors > 0) {
+            loadDungeon(new LazyTileStore(dungeonSeeds.nextLong(), width, height, floors, residentFloors).dungeon());
+            return;
+        }
+        loadDungeon(DungeonGenerator.generate(dungeonSeeds.nextLong(), width, height, floors));
+    }
+
+    private void loadDungeon(Dungeon dungeon) {
+        this.dungeon = dungeon;
+        stairGraph = null;
+        stairRoute = null;
+        goalField = null;
+        if (pathfinder != null) {
+            pathfinder.invalidate();
+        }
+        bfsPlans = 0;
+        tiles = dungeon.tiles;
+        features = dungeon.features();
+        goalX = dungeon.goalX;
+        goalY = dungeon.goalY;
+        if (visionRadius > 0) {
+            fov = new FieldOfView(tiles, visionRadius, FOV_CACHE_SIZE);
+        }
+        startSession();
+    }
+
+    private void startSession() {
+        if (trail == null) {
+            trail = new BitLayer(width, height, floors);
+            visited = new BitLayer(width, height, floors);
+        } else {
+            trail.clear();
+            visited.clear();
+        }
+        if (fov != null) {
+            visible.clear();
+            explored.clear();
+            visibleCells = new int[0];
+        }
+
+        // Start position on the selected floor
+        int startFloor = Math.min(PLAYER_START_FLOOR, floors - 1);
+        previousFloor = startFloor;
+        gameWon = false;
+        onStairTile = false;
+        steps = 0;
+        placePlayer(startFloor);
+        if (listener != null) {
+            listener.dungeonLoaded();
+        }
+    }
+
+    void movePlayer(int dx, int dy) {
+        if (gameWon) return;
+
+        int newX = player.x + dx;
+        int newY = player.y + dy;
+
+        if (newX >= 0 && newX < width && newY >= 0 && newY < height) {
+            char destination = tiles.get(player.floor, newX, newY);
+
+            if (destination == '#') return;
+
+            // Poprzednia pozycja staje się śladem 'T' (traveled path), o ile gracz nie stał na schodach
+            if (!onStairTile) {
+                leaveTrail();
+            }
+
+            steps++;
+            GameMetrics.GLOBAL.steps.increment();
+
+            onStairTile = (destination == 'U' || destination == 'D');
+            moveTo(player.moveTo(newX, newY));
+            if (logging && GameLog.isEnabled()) {
+                GameLog.log("Nowa pozycja gracza: (" + newX + ", " + newY + ")");
+            }
+
+            if (destination == 'G') {
+                gameWon = true;
+            }
+        }
+    }
+
+    void changeFloor() {
+        char tile = tiles.get(player.floor, player.x, player.y);
+        int floor = player.floor;
+        if (tile == 'U' && floor < floors - 1) {
+            floor++;
+        } else if (tile == 'D' && floor > 0) {
+            floor--;
+        }
+
+        // Zmieniamy poprzednią pozycję gracza na 'T' tylko, jeśli nie wchodzimy po raz pierwszy na nowe piętro
+        if (previousFloor == floor) {
+            leaveTrail();
+        } else {
+            previousFloor = floor;
+        }
+
+        onStairTile = false;
+        placePlayer(floor);
+        if (logging && GameLog.isEnabled()) {
+            GameLog.log("Nowe piętro: " + floor);
+        }
+
+        if (autoPlay) {
+            findShortestPathToGoal();
+        }
+    }
+
+    // Start i teleport tylko na zwykłą podłogę z indeksu cech, jedno losowanie zamiast trafiania w ściany;
+    // start na schodach albo celu od razu zmieniałby piętro albo kończył grę. Piętro bez zwykłej podłogi
+    // (np. jedno pole na piętro) zostawia w indeksie schody i cel: gracz staje wtedy na schodach albo wygrywa
+    private void placePlayer(int floor) {
+        tiles.load(floor);
+        int cell = features.randomOpenCell(floor, rand);
+        int x = cell % width, y = cell / width;
+        char tile = tiles.get(floor, x, y);
+        onStairTile = tile == 'U' || tile == 'D';
+        moveTo(new PlayerPosition(floor, x, y));
+        if (tile == 'G') {
+            gameWon = true;
+        }
+    }
+
+    // Nowa pozycja gracza; pole z 'P' (poza schodami) trafia do listenera
+    private void moveTo(PlayerPosition position) {
+        player = position;
+        visited.set(position.floor, position.x, position.y);
+        if (!onStairTile) {
+            tileChanged(position.floor, position.x, position.y);
+        }
+        if (fov != null) {
+            updateVision();
+        }
+    }
+
+    // Widok liczony tylko przy zmianie pozycji (powrót na znane pole to trafienie w cache FieldOfView);
+    // nowo odkryte pola idą do listenera, żeby renderer je odsłonił
+    private void updateVision() {
+        for (int cell : visibleCells) {
+            visible.clear(visibleFloor, cell % width, cell / width);
+        }
+        int floor = player.floor;
+        visibleCells = fov.visibleFrom(floor, player.x, player.y);
+        visibleFloor = floor;
+        for (int cell : visibleCells) {
+            int x = cell % width, y = cell / width;
+            visible.set(floor, x, y);
+            if (explored.set(floor, x, y)) {
+                tileChanged(floor, x, y);
+            }
+        }
+    }
+
+    // Bieżące pole gracza staje się śladem; sama warstwa sesji, mapa lochu zostaje bez zmian
+    private void leaveTrail() {
+        trail.set(player.floor, player.x, player.y);
+        tileChanged(player.floor, player.x, player.y);
+    }
+
+    private int playerCell() {
+        return dungeon.cell(player.x, player.y, player.floor);
+    }
+
+    private void tileChanged(int floor, int x, int y) {
+        if (listener != null) {
+            listener.tileChanged(floor, x, y);
+        }
+    }
+
+    // Bez pathfindera plan to samo pobranie pola lochu (liczonego raz na loch), a krok to odczyt kierunku;
+    // loch z mapowania (albo za duży na pole) planuje po jednym piętrze przez StairRoute.
+    // Z pathfinderem: budowa grafu kosztuje tyle co kilka BFS z wczesnym wyjściem, więc pierwsze plany
+    // to zwykły BFS; gra, która dalej skacze między piętrami, przechodzi na zapytania do grafu schodów
+    private void findShortestPathToGoal() {
+        long start = System.nanoTime();
+        if (tiles instanceof LazyTileStore) {
+            ((LazyTileStore) tiles).findPath(player.floor, player.x, player.y, autoPath);
+        } else if (pathfinder == null && GoalDistanceField.fits(dungeon)) {
+            autoPath.clear();
+            goalField = dungeon.goalField();
+        } else if (pathfinder == null) {
+            if (stairRoute == null) {
+                stairRoute = new StairRoute(dungeon);
+            }
+            stairRoute.findPath(player.floor, player.x, player.y, autoPath);
+        } else if (stairGraph == null && (bfsPlans < BFS_PLANS_BEFORE_GRAPH || !StairGraph.fits(dungeon))) {
+            bfsPlans++;
+            pathfinder.findPathToGoal(dungeon, player.x, player.y, player.floor, autoPath);
+            GameMetrics.GLOBAL.searchNodes.add(pathfinder.stats().lastExpanded());
+        } else {
+            if (stairGraph == null) {
+                stairGraph = new StairGraph(dungeon);
+            }
+            stairGraph.findPathToGoal(player.x, player.y, player.floor, autoPath);
+        }
+        GameMetrics.GLOBAL.searchNanos.record(System.nanoTime() - start);
+    }
+
+    // Jeden krok automatycznej gry; zwraca false, gdy gra się zakończyła
+    boolean autoStep() {
+        if (gameWon || !hasAutoPath()) {
+            return false;
+        }
+
+        int nextStep = goalField != null ? goalField.nextCell(playerCell()) : autoPath.poll();
+        int nextX = dungeon.cellX(nextStep);
+        int nextY = dungeon.cellY(nextStep);
+        int nextFloor = dungeon.cellFloor(nextStep);
+        steps++;
+        GameMetrics.GLOBAL.steps.increment();
+
+        // Update the previous position to 'T' before moving the player
+        if (!onStairTile) {
+            leaveTrail();
+        }
+
+        if (nextFloor != player.floor) {
+            if (tiles.get(nextFloor, nextX, nextY) == 'G') {
+                gameWon = true;
+            }
+            onStairTile = false;
+            moveTo(new PlayerPosition(nextFloor, nextX, nextY));
+            if (gameWon) {
+                return false;
+            }
+            findShortestPathToGoal(); // Recalculate path after changing floor
+            return true;
+        }
+
+        char currentTile = tiles.get(player.floor, nextX, nextY);
+        onStairTile = (currentTile == 'U' || currentTile == 'D');
+        moveTo(player.moveTo(nextX, nextY));
+
+        if (onStairTile) {
+            changeFloor(); // Simulate pressing space, path is recalculated there
+            return true;
+        }
+
+        if (currentTile == 'G') {
+            gameWon = true;
+        }
+
+        return !gameWon && hasAutoPath();
+    }
+}
@@ -0,0 +1,156 @@
+package dungeoncrawler;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Generowanie lochów. Każde piętro dostaje własny SplittableRandom wyprowadzony z ziarna lochu,
+// więc wynik jest identyczny niezależnie od liczby wątków; schody dokładane są potem sekwencyjnie.
+final class DungeonGenerator {
+
+    // Bufory rzeźbienia są wielokrotnego użytku, po jednym zestawie na wątek puli
+    private static final ThreadLocal<MazeCarver> CARVERS = ThreadLocal.withInitial(MazeCarver::new);
+    // Naprawa łączy każdy spójny labirynt, więc kolejne próby to tylko zabezpieczenie przed pętlą bez końca
+    private static final int MAX_ATTEMPTS = 64;
+
+    private DungeonGenerator() {
+    }
+
+    static Dungeon generate(long seed) {
+        return generate(seed, DungeonGame.DEFAULT_WIDTH, DungeonGame.DEFAULT_HEIGHT, DungeonGame.DEFAULT_FLOORS);
+    }
+
+    static Dungeon generate(long seed, int width, int height, int floors) {
+        return generate(seed, width, height, floors, MazeCarver.Mode.RECURSIVE_BACKTRACKER, false);
+    }
+
+    static Dungeon generate(long seed, int width, int height, int floors, MazeCarver.Mode mode) {
+        return generate(seed, width, height, floors, mode, false);
+    }
+
+    // Piętra jednego lochu budowane równolegle na podanej puli
+    static Dungeon generate(long seed, int width, int height, int floors, MazeCarver.Mode mode, ForkJoinPool pool) {
+        return pool.submit(() -> generate(seed, width, height, floors, mode, true)).join();
+    }
+
+    // Niezależne lochy (i ich piętra) budowane równolegle; wynik w kolejności ziaren
+    static Dungeon[] generateBatch(long[] seeds, int width, int height, int floors, MazeCarver.Mode mode, ForkJoinPool pool) {
+        return pool.submit(() -> IntStream.range(0, seeds.length)
+                .parallel()
+                .mapToObj(i -> generate(seeds[i], width, height, floors, mode, true))
+                .toArray(Dungeon[]::new)).join();
+    }
+
+    // Loch, z którego każdej otwartej komórki da się dojść do celu. Zerwane łańcuchy schodów
+    // naprawia DungeonConnectivity; jeśli naprawa się nie uda, losujemy od nowa z ziarna pochodnego
+    // (deterministycznie, najwyżej MAX_ATTEMPTS razy), a loch zachowuje ziarno, o które poproszono
+    private static Dungeon generate(long seed, int width, int height, int floors, MazeCarver.Mode mode, boolean parallelFloors) {
+        long start = System.nanoTime();
+        long attemptSeed = seed;
+        Dungeon dungeon;
+        int attempts = 1;
+        while ((dungeon = tryGenerate(seed, attemptSeed, width, height, floors, mode, parallelFloors)) == null) {
+            if (attempts++ == MAX_ATTEMPTS) {
+                throw new IllegalArgumentException("No connected dungeon of size " + width + "x" + height + "x" + floors
+                        + " after " + MAX_ATTEMPTS + " attempts (seed " + seed + ")");
+            }
+            attemptSeed = new SplittableRandom(attemptSeed).split().nextLong();
+        }
+        GameMetrics.GLOBAL.generationNanos.record(System.nanoTime() - start);
+        return dungeon;
+    }
+
+    private static Dungeon tryGenerate(long seed, long attemptSeed, int width, int height, int floors,
+                                       MazeCarver.Mode mode, boolean parallelFloors) {
+        SplittableRandom root = new SplittableRandom(attemptSeed);
+        int goalFloor = root.nextInt(floors); // Randomly select a floor for the goal
+        long[] floorSeeds = new long[floors];
+        for (int f = 0; f < floors; f++) {
+            floorSeeds[f] = root.nextLong();
+        }
+
+        // Każde piętro ma własną tablicę słów (i własne tablice indeksu), więc równoległe piętra nie dzielą danych
+        TileStore tiles = new PackedTileStore(width, height, floors);
+        FeatureIndex features = new FeatureIndex(width, height, floors);
+
+        IntStream floorStream = IntStream.range(0, floors);
+        if (parallelFloors) {
+            floorStream = floorStream.parallel();
+        }
+        floorStream.forEach(f -> generateDungeon(tiles, features, f, f == goalFloor, mode, new SplittableRandom(floorSeeds[f])));
+
+        // Add stairs between floors
+        for (int f = 0; f < floors - 1; f++) {
+            addStairs(tiles, features, f, f == floors - 2, root);
+        }
+
+        // Add stairs down to the last floor
+        addStairs(tiles, features, floors - 1, true, root);
+
+        int goal = features.goalCell();
+        Dungeon dungeon = new Dungeon(tiles, seed, goalFloor, goal % width, goal / width, features);
+        DungeonConnectivity connectivity = new DungeonConnectivity(dungeon);
+        if (!connectivity.isValid() && !connectivity.repair(root)) {
+            return null;
+        }
+        features.seal(tiles);
+        return dungeon;
+    }
+
+    // Zwraca indeks celu (y * width + x) albo -1, jeśli to nie jest piętro z celem.
+    // Indeks cech piętra powstaje w trakcie rzeźbienia, więc cel losujemy wprost z listy otwartych pól
+    static int generateDungeon(TileStore tiles, FeatureIndex features, int floor, boolean isGoalFloor,
+                               MazeCarver.Mode mode, SplittableRandom rand) {
+        tiles.fill(floor, '#');
+        features.clearFloor(floor);
+
+        int start = CARVERS.get().carve(tiles, floor, mode, rand, features);
+
+        if (!isGoalFloor) {
+            return -1;
+        }
+
+        // Cel poza polem startowym; gdy piętro ma jedno pole, cel staje na nim
+        int goal = features.randomOpenCell(floor, rand, start);
+        tiles.set(floor, goal % tiles.width(), goal / tiles.width(), 'G');
+        features.goalPlaced(floor, goal);
+        return goal;
+    }
+
+    // Schody na piętrze floor (i w górę na floor + 1 w przypadku ogólnym)
+    static void addStairs(TileStore tiles, FeatureIndex features, int floor, boolean isLastFloor, SplittableRandom rand) {
+        if (isLastFloor) {
+            // Ostatnie piętro, dodaj tylko schody w dół
+            placeStairs(tiles, features, floor, 'D', rand);
+        } else if (floor == 0) {
+            // Pierwsze piętro, dodaj tylko schody w górę
+            placeStairs(tiles, features, floor, 'U', rand);
+        } else {
+            // Przypadek ogólny, dodaj schody w dół na obecnym piętrze
+            placeStairs(tiles, features, floor, 'D', rand);
+
+            // Dodaj schody w górę na następnym piętrze
+            placeStairs(tiles, features, floor + 1, 'U', rand);
+        }
+
+        // Dodaj schody w górę, jeśli jest to drugie piętro (indeksowanie od 0)
+        if (floor == 1 && !features.hasUpStairs(floor)) {
+            placeStairs(tiles, features, floor, 'U', rand);
+        }
+    }
+
+    // Schody w losowym ślepym zaułku, a gdy piętro ich nie ma (np. same pętle albo malutka mapa), na dowolnej
+    // podłodze. Wzięty zaułek znika z indeksu, więc dwoje schodów nie trafi na to samo pole; bez wolnego pola
+    // schodów nie ma, a brakujące połączenie dołoży potem naprawa DungeonConnectivity
+    private static void placeStairs(TileStore tiles, FeatureIndex features, int floor, char stairs, SplittableRandom rand) {
+        int cell = features.takeDeadEnd(floor, rand);
+        if (cell < 0) {
+            cell = features.randomOpenCell(floor, rand);
+        }
+        int x = cell % tiles.width(), y = cell / tiles.width();
+        if (cell >= 0 && tiles.get(floor, x, y) == '.') {
+            tiles.set(floor, x, y, stairs);
+            features.stairsPlaced(floor, cell, stairs);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package dungeoncrawler;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+// Kolejka gotowych lochów generowanych w tle, żeby restart tylko podmieniał loch.
+// Ziarna idą po kolei z jednego strumienia, a take() oddaje lochy w tej samej kolejności,
+// więc gra z pulą dostaje dokładnie te same lochy co bez niej. Lochy dalej w kolejce, nieużywane
+// dłużej niż maxIdle, są zwalniane (zostaje tylko ziarno) i generowane ponownie przy następnym take();
+// pierwszy loch zostaje zawsze gotowy, więc restart nie czeka nawet po długiej przerwie.
+final class DungeonPool implements AutoCloseable {
+
+    private static final class Entry {
+        final long seed;
+        Future<Dungeon> future;
+        long readyNanos;
+
+        Entry(long seed) {
+            this.seed = seed;
+        }
+    }
+
+    private final int width, height, floors;
+    private final SplittableRandom seeds;
+    private final int size;
+    private final long maxIdleNanos;
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final ScheduledExecutorService workers;
+
+    DungeonPool(int width, int height, int floors, SplittableRandom seeds, int size, long maxIdleMillis) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + size);
+        }
+        this.width = width;
+        this.height = height;
+        this.floors = floors;
+        this.seeds = seeds;
+        this.size = size;
+        this.maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(maxIdleMillis);
+        this.workers = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dungeon-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        synchronized (this) {
+            refill();
+        }
+        // maxIdle 0 = bez zwalniania
+        if (maxIdleNanos > 0) {
+            long period = Math.max(maxIdleNanos / 2, 1);
+            workers.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Następny loch z kolejki; czeka tylko wtedy, gdy tło jeszcze go nie skończyło albo został zwolniony
+    Dungeon take() {
+        Entry entry;
+        synchronized (this) {
+            entry = queue.poll();
+            refill();
+        }
+        if (entry.future == null) {
+            return prepare(entry.seed, width, height, floors);
+        }
+        try {
+            return entry.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return prepare(entry.seed, width, height, floors);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Dungeon generation failed for seed " + entry.seed, e.getCause());
+        }
+    }
+
+    synchronized int ready() {
+        int ready = 0;
+        for (Entry entry : queue) {
+            if (entry.future != null && entry.future.isDone()) {
+                ready++;
+            }
+        }
+        return ready;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    // Uzupełnia kolejkę do size i zleca ponownie lochy zwolnione przez evictIdle
+    private void refill() {
+        while (queue.size() < size) {
+            queue.add(new Entry(seeds.nextLong()));
+        }
+        for (Entry entry : queue) {
+            if (entry.future == null) {
+                long seed = entry.seed;
+                entry.readyNanos = System.nanoTime();
+                entry.future = workers.submit(() -> prepare(seed, width, height, floors));
+            }
+        }
+    }
+
+    private synchronized void evictIdle() {
+        long now = System.nanoTime();
+        for (Entry entry : queue) {
+            if (entry != queue.peek() && entry.future != null && entry.future.isDone() && now - entry.readyNanos > maxIdleNanos) {
+                entry.future = null;
+            }
+        }
+    }
+
+    // Loch z policzonym od razu polem odległości do celu, żeby auto-play po restarcie nie czekał na BFS
+    static Dungeon prepare(long seed, int width, int height, int floors) {
+        Dungeon dungeon = DungeonGenerator.generate(seed, width, height, floors);
+        dungeon.goalField();
+        return dungeon;
+    }
+}
@@ -0,0 +1,412 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Indeks cech pięter prowadzony w trakcie rzeźbienia: otwarte komórki, ślepe zaułki, schody i cel.
+// Komórki w obrębie piętra jako y * width + x. Otwarte komórki to bitset (bit na pole, do tego licznik
+// na blok słów do szybkiego losowania i-tej), ślepe zaułki, schody i cel to listy wielkości liczby tych cech.
+// Ślepy zaułek to otwarta komórka z jednym otwartym sąsiadem; sąsiadów liczymy z bitsetu.
+// Tablice piętra powstają przy pierwszym dotknięciu, żeby pojedyncze ogromne piętra nie kosztowały podwójnie.
+// Indeks lochu z pliku (sampled) zna tylko schody i cel z nagłówka; losowe pola bierze wprost z kafelków,
+// a piętro skanuje dopiero wtedy, gdy losowanie nie trafia w podłogę. Taki indeks jest dla jednego wątku.
+final class FeatureIndex {
+
+    // Słowa bitsetu w bloku z licznikiem otwartych pól (4096 pól)
+    private static final int BLOCK_WORDS = 64;
+    // Losowania pola z kafelków, zanim piętro zostanie zeskanowane (chybienie to ściana, schody albo cel)
+    private static final int SAMPLE_ATTEMPTS = 64;
+
+    private final int width, height, floors;
+    // Po seal() bez schodów i celu (o ile piętro nie zostałoby bez pól)
+    private final long[][] open;
+    private final int[][] blockOpen;
+    private final int[] openCount;
+    // Kandydaci na ślepe zaułki; wpisy nieaktualne (komórka dostała drugiego sąsiada) usuwa dopiero prune.
+    // Potrzebne tylko do stawiania schodów, więc seal() je zwalnia
+    private final int[][] deadEnds;
+    private final int[] deadEndCount;
+    private final boolean[] deadEndsPruned;
+    // Pola schodów i celu piętra, już nie do wzięcia jako ślepy zaułek
+    private final int[][] featureCells;
+    private final int[] featureCount;
+    private final int[] upStairs, downStairs;
+    private int goalFloor = -1, goalCell = -1;
+    private final TileStore sampled;
+
+    FeatureIndex(int width, int height, int floors) {
+        this(width, height, floors, null);
+    }
+
+    private FeatureIndex(int width, int height, int floors, TileStore sampled) {
+        this.sampled = sampled;
+        this.width = width;
+        this.height = height;
+        this.floors = floors;
+        open = new long[floors][];
+        blockOpen = new int[floors][];
+        openCount = new int[floors];
+        deadEnds = new int[floors][];
+        deadEndCount = new int[floors];
+        deadEndsPruned = new boolean[floors];
+        featureCells = new int[floors][];
+        featureCount = new int[floors];
+        upStairs = new int[floors];
+        downStairs = new int[floors];
+    }
+
+    // Indeks gotowych kafelków (np. lochu wczytanego z pliku), jeden przebieg po każdym piętrze
+    static FeatureIndex scan(TileStore tiles) {
+        FeatureIndex features = new FeatureIndex(tiles.width(), tiles.height(), tiles.floors());
+        for (int f = 0; f < tiles.floors(); f++) {
+            features.scanFloor(tiles, f);
+        }
+        features.seal(tiles);
+        return features;
+    }
+
+    // Indeks bez przebiegu po kafelkach: schody (komórki piętra) i cel z nagłówka pliku
+    static FeatureIndex sampled(TileStore tiles, int[][] upStairs, int[][] downStairs, int goalFloor, int goalCell) {
+        FeatureIndex features = new FeatureIndex(tiles.width(), tiles.height(), tiles.floors(), tiles);
+        for (int f = 0; f < tiles.floors(); f++) {
+            for (int cell : upStairs[f]) {
+                features.stairsPlaced(f, cell, 'U');
+            }
+            for (int cell : downStairs[f]) {
+                features.stairsPlaced(f, cell, 'D');
+            }
+        }
+        features.goalPlaced(goalFloor, goalCell);
+        return features;
+    }
+
+    void scanFloor(TileStore tiles, int floor) {
+        clearFloor(floor);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                char tile = tiles.get(floor, x, y);
+                if (tile != '#') {
+                    opened(floor, x, y);
+                }
+                if (tile == 'U' || tile == 'D') {
+                    stairsPlaced(floor, y * width + x, tile);
+                } else if (tile == 'G') {
+                    goalPlaced(floor, y * width + x);
+                }
+            }
+        }
+    }
+
+    // Piętro znowu same ściany (TileStore.fill przed rzeźbieniem)
+    void clearFloor(int floor) {
+        if (open[floor] != null) {
+            Arrays.fill(open[floor], 0L);
+            Arrays.fill(blockOpen[floor], 0);
+        }
+        openCount[floor] = 0;
+        deadEndCount[floor] = 0;
+        deadEndsPruned[floor] = false;
+        featureCount[floor] = 0;
+        upStairs[floor] = 0;
+        downStairs[floor] = 0;
+        if (goalFloor == floor) {
+            goalFloor = goalCell = -1;
+        }
+    }
+
+    // Ściana na (x, y) stała się przejściem; wołane przez MazeCarver przy każdym wykutym polu
+    void opened(int floor, int x, int y) {
+        long[] bits = floorBits(floor);
+        int cell = y * width + x;
+        if (isOpen(bits, cell)) {
+            return;
+        }
+        setOpen(floor, cell, true);
+        // Sąsiad z jednym otwartym sąsiadem (tym polem) staje się ślepym zaułkiem, z drugim przestaje nim być (leniwie)
+        int degree = 0;
+        if (x > 0 && isOpen(bits, cell - 1)) {
+            degree++;
+            connect(floor, bits, cell - 1);
+        }
+        if (x < width - 1 && isOpen(bits, cell + 1)) {
+            degree++;
+            connect(floor, bits, cell + 1);
+        }
+        if (y > 0 && isOpen(bits, cell - width)) {
+            degree++;
+            connect(floor, bits, cell - width);
+        }
+        if (y < height - 1 && isOpen(bits, cell + width)) {
+            degree++;
+            connect(floor, bits, cell + width);
+        }
+        if (degree == 1) {
+            addDeadEnd(floor, cell);
+        }
+    }
+
+    int openCount(int floor) {
+        scanSampled(floor);
+        return openCount[floor];
+    }
+
+    int deadEndCount(int floor) {
+        prune(floor);
+        return deadEndCount[floor];
+    }
+
+    boolean hasUpStairs(int floor) {
+        return upStairs[floor] > 0;
+    }
+
+    // Piętro z celem albo -1
+    int goalFloor() {
+        return goalFloor;
+    }
+
+    // Cel w obrębie piętra (y * width + x) albo -1; para z goalFloor, bez mnożenia przez rozmiar piętra
+    int goalCell() {
+        return goalCell;
+    }
+
+    // Losowy ślepy zaułek piętra, od razu wyjęty z listy (dwa razy tego samego nie dostaniemy); -1, gdy brak
+    int takeDeadEnd(int floor, SplittableRandom rand) {
+        prune(floor);
+        int count = deadEndCount[floor];
+        if (count == 0) {
+            return -1;
+        }
+        int[] list = deadEnds[floor];
+        int i = rand.nextInt(count);
+        int cell = list[i];
+        list[i] = list[--deadEndCount[floor]];
+        return cell;
+    }
+
+    // Losowa otwarta komórka piętra, różna od exclude (o ile to nie jedyna); -1, gdy piętro nie ma przejść
+    int randomOpenCell(int floor, SplittableRandom rand, int exclude) {
+        if (sampled != null && open[floor] == null) {
+            // Jednorodnie po podłodze piętra, jak z bitsetu po seal()
+            int floorSize = width * height;
+            for (int i = 0; i < SAMPLE_ATTEMPTS; i++) {
+                int cell = rand.nextInt(floorSize);
+                if (cell != exclude && sampled.get(floor, cell % width, cell / width) == '.') {
+                    return cell;
+                }
+            }
+            scanSampled(floor);
+        }
+        int count = openCount[floor];
+        if (count == 0) {
+            return -1;
+        }
+        boolean skip = count > 1 && exclude >= 0 && isOpen(open[floor], exclude);
+        if (!skip) {
+            return openCell(floor, rand.nextInt(count));
+        }
+        // Losujemy spośród count - 1; od exclude w górę bierzemy następną komórkę w kolejności rastra
+        int i = rand.nextInt(count - 1);
+        int cell = openCell(floor, i);
+        return cell >= exclude ? openCell(floor, i + 1) : cell;
+    }
+
+    int randomOpenCell(int floor, SplittableRandom rand) {
+        return randomOpenCell(floor, rand, -1);
+    }
+
+    // i-ta otwarta komórka piętra w kolejności rastra, 0 <= i < openCount(floor); dla losowania własnym generatorem
+    int openCell(int floor, int i) {
+        scanSampled(floor);
+        long[] bits = open[floor];
+        int[] blocks = blockOpen[floor];
+        int block = 0;
+        while (i >= blocks[block]) {
+            i -= blocks[block++];
+        }
+        int w = block * BLOCK_WORDS;
+        while (i >= Long.bitCount(bits[w])) {
+            i -= Long.bitCount(bits[w++]);
+        }
+        long word = bits[w];
+        for (; i > 0; i--) {
+            word &= word - 1;
+        }
+        return w * 64 + Long.numberOfTrailingZeros(word);
+    }
+
+    void stairsPlaced(int floor, int cell, char stairs) {
+        if (stairs == 'U') {
+            upStairs[floor]++;
+        } else {
+            downStairs[floor]++;
+        }
+        addFeature(floor, cell);
+    }
+
+    // Schody zamienione na inne (naprawa DungeonConnectivity); pole dalej jest cechą
+    void stairsRemoved(int floor, char stairs) {
+        if (stairs == 'U') {
+            upStairs[floor]--;
+        } else {
+            downStairs[floor]--;
+        }
+    }
+
+    void goalPlaced(int floor, int cell) {
+        goalFloor = floor;
+        goalCell = cell;
+        addFeature(floor, cell);
+    }
+
+    // Po schodach i celu: z otwartych pól znikają te, na których nie wolno postawić gracza, a listy
+    // ślepych zaułków przestają być potrzebne. Koszt to liczba cech piętra; piętro, które zostałoby bez pól, zostaje bez zmian
+    void seal(TileStore tiles) {
+        for (int f = 0; f < floors; f++) {
+            sealFloor(tiles, f);
+        }
+    }
+
+    void sealFloor(TileStore tiles, int floor) {
+        deadEnds[floor] = null;
+        deadEndCount[floor] = 0;
+        int[] cells = featureCells[floor];
+        int removed = 0;
+        for (int i = 0; i < featureCount[floor]; i++) {
+            int cell = cells[i];
+            char tile = tiles.get(floor, cell % width, cell / width);
+            if ((tile == 'U' || tile == 'D' || tile == 'G') && isOpen(open[floor], cell)) {
+                // Zdjęte pola na początek listy, żeby dało się je przywrócić
+                setOpen(floor, cell, false);
+                cells[i] = cells[removed];
+                cells[removed++] = cell;
+            }
+        }
+        if (removed > 0 && openCount[floor] == 0) {
+            for (int i = 0; i < removed; i++) {
+                setOpen(floor, cells[i], true);
+            }
+        }
+    }
+
+    // Piętro usunięte z pamięci (LazyTileStore): zostają tylko liczniki schodów i cel
+    void releaseFloor(int floor) {
+        open[floor] = null;
+        blockOpen[floor] = null;
+        deadEnds[floor] = null;
+        featureCells[floor] = null;
+        openCount[floor] = 0;
+        deadEndCount[floor] = 0;
+        featureCount[floor] = 0;
+    }
+
+    private void scanSampled(int floor) {
+        if (sampled != null && open[floor] == null) {
+            scanFloor(sampled, floor);
+            sealFloor(sampled, floor);
+        }
+    }
+
+    private void connect(int floor, long[] bits, int cell) {
+        if (degree(bits, cell) == 1) {
+            addDeadEnd(floor, cell);
+        } else {
+            deadEndsPruned[floor] = false;
+        }
+    }
+
+    private int degree(long[] bits, int cell) {
+        int x = cell % width, y = cell / width;
+        int degree = 0;
+        if (x > 0 && isOpen(bits, cell - 1)) {
+            degree++;
+        }
+        if (x < width - 1 && isOpen(bits, cell + 1)) {
+            degree++;
+        }
+        if (y > 0 && isOpen(bits, cell - width)) {
+            degree++;
+        }
+        if (y < height - 1 && isOpen(bits, cell + width)) {
+            degree++;
+        }
+        return degree;
+    }
+
+    // Rzeźbiony korytarz na chwilę robi ślepy zaułek z prawie każdego pola, więc pełną listę najpierw czyścimy,
+    // a rośnie dopiero, gdy po czyszczeniu zostaje zajęta w ponad połowie (lista ~ prawdziwe ślepe zaułki, nie pola)
+    private void addDeadEnd(int floor, int cell) {
+        int[] list = deadEnds[floor];
+        if (list == null) {
+            list = deadEnds[floor] = new int[16];
+        } else if (deadEndCount[floor] == list.length) {
+            prune(floor);
+            if (deadEndCount[floor] > list.length / 2) {
+                list = deadEnds[floor] = Arrays.copyOf(list, list.length * 2);
+            }
+        }
+        list[deadEndCount[floor]++] = cell;
+    }
+
+    // Usuwa z listy kandydatów komórki, które mają już więcej niż jednego sąsiada albo stoją na nich schody lub cel
+    private void prune(int floor) {
+        if (deadEndsPruned[floor]) {
+            return;
+        }
+        long[] bits = open[floor];
+        int[] list = deadEnds[floor];
+        int kept = 0;
+        for (int i = 0; i < deadEndCount[floor]; i++) {
+            if (degree(bits, list[i]) == 1 && !isFeature(floor, list[i])) {
+                list[kept++] = list[i];
+            }
+        }
+        deadEndCount[floor] = kept;
+        deadEndsPruned[floor] = true;
+    }
+
+    private void addFeature(int floor, int cell) {
+        int[] cells = featureCells[floor];
+        if (cells == null || featureCount[floor] == cells.length) {
+            cells = featureCells[floor] = cells == null ? new int[4] : Arrays.copyOf(cells, cells.length * 2);
+        }
+        cells[featureCount[floor]++] = cell;
+        deadEndsPruned[floor] = false;
+    }
+
+    // Cech na piętrze jest kilka (schody i cel), więc wystarcza przejrzeć listę
+    private boolean isFeature(int floor, int cell) {
+        int[] cells = featureCells[floor];
+        for (int i = 0; i < featureCount[floor]; i++) {
+            if (cells[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOpen(long[] bits, int cell) {
+        return bits != null && (bits[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    private void setOpen(int floor, int cell, boolean value) {
+        long[] bits = open[floor];
+        if (value) {
+            bits[cell >>> 6] |= 1L << cell;
+        } else {
+            bits[cell >>> 6] &= ~(1L << cell);
+        }
+        int delta = value ? 1 : -1;
+        blockOpen[floor][(cell >>> 6) / BLOCK_WORDS] += delta;
+        openCount[floor] += delta;
+    }
+
+    private long[] floorBits(int floor) {
+        long[] bits = open[floor];
+        if (bits == null) {
+            int words = (int) (((long) width * height + 63) >>> 6);
+            bits = open[floor] = new long[words];
+            blockOpen[floor] = new int[(words + BLOCK_WORDS - 1) / BLOCK_WORDS];
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,140 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Pole widzenia: symetryczny shadowcasting po ścianach '#' (ćwiartki, wiersze coraz dalej od gracza,
+// nachylenia cieni jako ułamki całkowite). Symetryczny: jeśli A widzi B, to B widzi A; ściany graniczące
+// z widocznym obszarem też są widoczne. Zasięg to koło o promieniu radius.
+// Mapa lochu się nie zmienia, więc wynik dla pola jest zawsze ten sam: ostatnie pozycje siedzą w LRU
+// jako listy pól piętra (y * width + x), a powrót na znane pole nie liczy niczego od nowa.
+final class FieldOfView {
+
+    // Ćwiartki: (wiersz, kolumna) -> (dx, dy) dla północy, południa, wschodu i zachodu
+    private static final int[] ROW_X = { 0, 0, 1, -1 };
+    private static final int[] ROW_Y = { -1, 1, 0, 0 };
+    private static final int[] COL_X = { 1, 1, 0, 0 };
+    private static final int[] COL_Y = { 0, 0, 1, 1 };
+
+    private final TileStore tiles;
+    private final int width, height, radius;
+    private final LinkedHashMap<Long, int[]> cache;
+
+    // Bufory liczenia: lista pól i bity do usuwania duplikatów na granicach ćwiartek
+    private final long[] seen;
+    private int[] cells = new int[64];
+    private int count;
+    private int floor, originX, originY, quadrant;
+    private long hits, misses;
+
+    FieldOfView(TileStore tiles, int radius, int cacheSize) {
+        this.tiles = tiles;
+        this.width = tiles.width();
+        this.height = tiles.height();
+        this.radius = radius;
+        seen = new long[(width * height + 63) >>> 6];
+        cache = new LinkedHashMap<>(Math.max(16, cacheSize * 2), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    int radius() {
+        return radius;
+    }
+
+    long cacheHits() {
+        return hits;
+    }
+
+    long cacheMisses() {
+        return misses;
+    }
+
+    // Pola piętra widoczne z (x, y) jako y * width + x; tablica współdzielona z cache, tylko do odczytu
+    int[] visibleFrom(int floor, int x, int y) {
+        long key = (long) floor * width * height + (long) y * width + x;
+        int[] visible = cache.get(key);
+        if (visible != null) {
+            hits++;
+            return visible;
+        }
+        misses++;
+        visible = compute(floor, x, y);
+        cache.put(key, visible);
+        return visible;
+    }
+
+    // Bez cache, np. do pomiaru samego liczenia
+    int[] compute(int floor, int x, int y) {
+        this.floor = floor;
+        originX = x;
+        originY = y;
+        count = 0;
+        reveal(x, y);
+        for (quadrant = 0; quadrant < 4; quadrant++) {
+            scan(1, -1, 1, 1, 1);
+        }
+        int[] visible = Arrays.copyOf(cells, count);
+        for (int i = 0; i < count; i++) {
+            seen[cells[i] >>> 6] &= ~(1L << cells[i]);
+        }
+        return visible;
+    }
+
+    // Wiersz depth ćwiartki między nachyleniami startN/startD i endN/endD (mianowniki dodatnie).
+    // Przejście ze ściany na podłogę zawęża początek, z podłogi na ścianę schodzi rekurencją do następnego wiersza
+    private void scan(int depth, int startN, int startD, int endN, int endD) {
+        if (depth > radius) {
+            return;
+        }
+        // Kolumny od round_ties_up(depth * start) do round_ties_down(depth * end)
+        int minCol = Math.floorDiv(2 * depth * startN + startD, 2 * startD);
+        int maxCol = -Math.floorDiv(endD - 2 * depth * endN, 2 * endD);
+        int previous = -1; // -1 = brak, 0 = podłoga, 1 = ściana
+        for (int col = minCol; col <= maxCol; col++) {
+            int x = originX + ROW_X[quadrant] * depth + COL_X[quadrant] * col;
+            int y = originY + ROW_Y[quadrant] * depth + COL_Y[quadrant] * col;
+            boolean wall = isWall(x, y);
+            // Ściany widać zawsze, podłogę tylko wtedy, gdy jej środek leży w stożku (symetria)
+            if ((wall || (col * startD >= depth * startN && col * endD <= depth * endN))
+                    && col * col + depth * depth <= radius * radius) {
+                reveal(x, y);
+            }
+            if (previous == 1 && !wall) {
+                startN = 2 * col - 1;
+                startD = 2 * depth;
+            }
+            if (previous == 0 && wall) {
+                scan(depth + 1, startN, startD, 2 * col - 1, 2 * depth);
+            }
+            previous = wall ? 1 : 0;
+        }
+        if (previous == 0) {
+            scan(depth + 1, startN, startD, endN, endD);
+        }
+    }
+
+    // Pole poza mapą blokuje widok jak ściana, ale nie trafia na listę
+    private boolean isWall(int x, int y) {
+        return x < 0 || x >= width || y < 0 || y >= height || tiles.get(floor, x, y) == '#';
+    }
+
+    private void reveal(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int cell = y * width + x;
+        if ((seen[cell >>> 6] & (1L << cell)) != 0) {
+            return;
+        }
+        seen[cell >>> 6] |= 1L << cell;
+        if (count == cells.length) {
+            cells = Arrays.copyOf(cells, count * 2);
+        }
+        cells[count++] = cell;
+    }
+}
@@ -0,0 +1,70 @@
+package dungeoncrawler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Logowanie bez pisania na konsolę w wątku gry: komunikat trafia do ograniczonej kolejki, a wątek w tle
+// wypisuje go na System.out. Przy pełnej kolejce komunikat przepada (liczymy je), więc gra nigdy nie czeka.
+// Wyłączone przez -Ddungeon.log=false, setEnabled(false), F4 w oknie albo przez JMX; wołający sprawdza
+// isEnabled() przed sklejaniem napisu, żeby wyłączony log nic nie kosztował.
+final class GameLog {
+
+    private static final int CAPACITY = 4096;
+
+    private static final BlockingQueue<String> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private static final LongAdder dropped = new LongAdder();
+    private static volatile boolean enabled = !"false".equals(System.getProperty("dungeon.log"));
+    private static volatile Thread writer;
+
+    private GameLog() {
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean enabled) {
+        GameLog.enabled = enabled;
+    }
+
+    static long dropped() {
+        return dropped.sum();
+    }
+
+    static void log(String message) {
+        if (!enabled) {
+            return;
+        }
+        if (writer == null) {
+            startWriter();
+        }
+        if (!queue.offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    private static synchronized void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(() -> {
+            try {
+                while (true) {
+                    System.out.println(queue.take());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "game-log");
+        writer.setDaemon(true);
+        writer.start();
+        // Przy wyjściu wypisujemy to, co zostało w kolejce
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            String message;
+            while ((message = queue.poll()) != null) {
+                System.out.println(message);
+            }
+        }, "game-log-flush"));
+    }
+}
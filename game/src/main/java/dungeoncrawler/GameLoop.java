@@ -0,0 +1,297 @@
+package dungeoncrawler;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Gra na własnym wątku ze stałym krokiem czasu. Wątek Swinga tylko wrzuca polecenia do kolejki
+// bez blokad i dostaje niezmienne migawki: pozycję gracza i zmienione kafelki od poprzedniej migawki
+// (po wczytaniu lochu pełną kopię kafelków). Szukanie drogi nigdy nie blokuje więc rysowania ani klawiatury.
+final class GameLoop {
+
+    static final int UP = 0;
+    static final int DOWN = 1;
+    static final int LEFT = 2;
+    static final int RIGHT = 3;
+    static final int STAIRS = 4;
+    static final int RESTART = 5;
+
+    // Tempo auto-play: od 20 ms na krok do bez ograniczeń (0)
+    static final long[] STEP_NANOS = { 20_000_000, 10_000_000, 5_000_000, 1_000_000, 0 };
+    // Migawki nie częściej niż raz na klatkę, chyba że coś się skończyło albo gracz nacisnął klawisz
+    private static final long FRAME_NANOS = 16_000_000;
+    // Po dłuższym przestoju nie nadrabiamy więcej kroków niż tyle
+    private static final int MAX_CATCH_UP = 5;
+
+    // Stan dla renderera; tiles != null tylko w pierwszej migawce nowego lochu, explored wtedy też,
+    // o ile gra ma mgłę wojny (później odkryte pola przychodzą jako zmienione kafelki)
+    static final class Snapshot {
+        final int game;
+        final int playerX, playerY, floor;
+        final long steps;
+        final boolean won, finished;
+        final PackedTileStore tiles;
+        final BitLayer explored;
+        final int[] changedCells;
+        final char[] changedTiles;
+
+        Snapshot(int game, int playerX, int playerY, int floor, long steps, boolean won, boolean finished,
+                 PackedTileStore tiles, BitLayer explored, int[] changedCells, char[] changedTiles) {
+            this.game = game;
+            this.playerX = playerX;
+            this.playerY = playerY;
+            this.floor = floor;
+            this.steps = steps;
+            this.won = won;
+            this.finished = finished;
+            this.tiles = tiles;
+            this.explored = explored;
+            this.changedCells = changedCells;
+            this.changedTiles = changedTiles;
+        }
+    }
+
+    private final DungeonGame game;
+    private final boolean autoPlay;
+    private final Consumer<Snapshot> publisher;
+    private final ReplayLog.Writer recorder;
+    private final Queue<Integer> input = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile long stepNanos = STEP_NANOS[0];
+    private volatile boolean stopped;
+
+    // Poniższe pola należą do wątku gry
+    private int gameNumber;
+    private boolean reloaded;
+    private boolean autoRunning, autoStarted;
+    private boolean checked;
+    private int recordedFloor;
+    private int[] changedCells = new int[64];
+    private char[] changedTiles = new char[64];
+    private int changes;
+
+    GameLoop(DungeonGame game, boolean autoPlay, Consumer<Snapshot> publisher) {
+        this(game, autoPlay, publisher, null);
+    }
+
+    // recorder może być null; zapis dostaje każde polecenie, serie kroków, zmiany pięter i koniec partii
+    GameLoop(DungeonGame game, boolean autoPlay, Consumer<Snapshot> publisher, ReplayLog.Writer recorder) {
+        this.game = game;
+        this.autoPlay = autoPlay;
+        this.publisher = publisher;
+        this.recorder = recorder;
+        this.thread = new Thread(this::run, "game-loop");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        stopped = true;
+        LockSupport.unpark(thread);
+    }
+
+    void submit(int command) {
+        input.add(command);
+        LockSupport.unpark(thread);
+    }
+
+    void setStepNanos(long stepNanos) {
+        this.stepNanos = stepNanos;
+        LockSupport.unpark(thread);
+    }
+
+    long getStepNanos() {
+        return stepNanos;
+    }
+
+    private void run() {
+        game.setTileListener(new DungeonGame.TileListener() {
+            @Override
+            public void tileChanged(int floor, int x, int y) {
+                recordChange(floor, x, y);
+            }
+
+            @Override
+            public void dungeonLoaded() {
+                reloaded = true;
+                changes = 0;
+            }
+        });
+        reloaded = true;
+        game.setAutoPlay(autoPlay);
+        started();
+        publish();
+
+        long next = System.nanoTime();
+        long lastPublish = next;
+        while (!stopped) {
+            long allocatedBefore = GameMetrics.currentThreadAllocatedBytes();
+            boolean urgent = processInput();
+
+            long step = stepNanos;
+            long now = System.nanoTime();
+            if (autoRunning && step == 0) {
+                // Bez ograniczeń: kroki porcjami po jednej klatce
+                long frameEnd = now + FRAME_NANOS;
+                while (autoRunning && input.isEmpty() && System.nanoTime() < frameEnd) {
+                    autoStep();
+                }
+                next = System.nanoTime();
+            } else if (autoRunning) {
+                if (now - next > MAX_CATCH_UP * step) {
+                    next = now - MAX_CATCH_UP * step;
+                }
+                while (autoRunning && now - next >= 0) {
+                    autoStep();
+                    next += step;
+                }
+            } else {
+                next = now;
+            }
+
+            if (!checked && (game.isGameWon() || (autoStarted && !autoRunning))) {
+                checked = true;
+                record(writer -> writer.check(game));
+            }
+
+            now = System.nanoTime();
+            boolean dirty = reloaded || changes > 0;
+            if (dirty && (urgent || !autoRunning || now - lastPublish >= FRAME_NANOS || step >= FRAME_NANOS)) {
+                publish();
+                lastPublish = now;
+            }
+            // Alokacje jednego obrotu pętli, który coś zrobił (kroki, polecenia, migawka)
+            if (dirty && allocatedBefore >= 0) {
+                GameMetrics.GLOBAL.tickAllocatedBytes.record(GameMetrics.currentThreadAllocatedBytes() - allocatedBefore);
+            }
+
+            if (!stopped && input.isEmpty() && !(autoRunning && stepNanos == 0)) {
+                // Budzi nas submit(), stop() albo zmiana tempa
+                LockSupport.parkNanos(this, autoRunning ? Math.max(next - System.nanoTime(), 0) : FRAME_NANOS * 60);
+            }
+        }
+        if (recorder != null) {
+            // Stan przy zamknięciu też do sprawdzenia, nawet jeśli partia się nie skończyła
+            record(writer -> writer.check(game));
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                System.err.println("Replay log: " + e.getMessage());
+            }
+        }
+    }
+
+    // Zwraca true, gdy jakieś polecenie zmieniło stan, żeby gracz od razu zobaczył efekt
+    private boolean processInput() {
+        boolean handled = false;
+        Integer command;
+        while ((command = input.poll()) != null) {
+            handled = true;
+            int code = command;
+            record(writer -> writer.command(code));
+            execute(game, autoPlay, code);
+            if (code == RESTART) {
+                started();
+            }
+            floorCheck();
+        }
+        return handled;
+    }
+
+    // Wspólne dla pętli i odtwarzania zapisu: to samo polecenie daje ten sam stan
+    static void execute(DungeonGame game, boolean autoPlay, int command) {
+        switch (command) {
+            case UP:
+                move(game, autoPlay, 0, -1);
+                break;
+            case DOWN:
+                move(game, autoPlay, 0, 1);
+                break;
+            case LEFT:
+                move(game, autoPlay, -1, 0);
+                break;
+            case RIGHT:
+                move(game, autoPlay, 1, 0);
+                break;
+            case STAIRS:
+                if (!autoPlay && !game.isGameWon() && game.isOnStairTile()) {
+                    game.changeFloor();
+                }
+                break;
+            case RESTART:
+                game.restart();
+                break;
+        }
+    }
+
+    private static void move(DungeonGame game, boolean autoPlay, int dx, int dy) {
+        if (!autoPlay) {
+            game.movePlayer(dx, dy);
+        }
+    }
+
+    private void autoStep() {
+        autoRunning = game.autoStep();
+        if (recorder != null) {
+            recorder.autoStep();
+            floorCheck();
+        }
+    }
+
+    private void floorCheck() {
+        if (game.getCurrentFloor() != recordedFloor) {
+            recordedFloor = game.getCurrentFloor();
+            record(writer -> writer.floorChanged(game));
+        }
+    }
+
+    private interface Recording {
+        void write(ReplayLog.Writer writer) throws IOException;
+    }
+
+    // Błąd zapisu nie może zatrzymać gry: zgłaszamy go i nagrywamy dalej, ile się da
+    private void record(Recording recording) {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recording.write(recorder);
+        } catch (IOException e) {
+            System.err.println("Replay log: " + e.getMessage());
+        }
+    }
+
+    private void started() {
+        gameNumber++;
+        checked = false;
+        recordedFloor = game.getCurrentFloor();
+        autoStarted = autoPlay && game.hasAutoPath();
+        autoRunning = autoStarted;
+    }
+
+    private void recordChange(int floor, int x, int y) {
+        if (changes == changedCells.length) {
+            changedCells = Arrays.copyOf(changedCells, changes * 2);
+            changedTiles = Arrays.copyOf(changedTiles, changes * 2);
+        }
+        changedCells[changes] = (floor * game.getHeight() + y) * game.getWidth() + x;
+        changedTiles[changes] = game.tileAt(floor, x, y);
+        changes++;
+    }
+
+    private void publish() {
+        PackedTileStore tiles = reloaded ? game.copyView() : null;
+        BitLayer explored = reloaded ? game.copyExplored() : null;
+        publisher.accept(new Snapshot(gameNumber, game.getPlayerX(), game.getPlayerY(), game.getCurrentFloor(),
+                game.getSteps(), game.isGameWon(), autoStarted && !autoRunning, tiles, explored,
+                Arrays.copyOf(changedCells, changes), Arrays.copyOf(changedTiles, changes)));
+        reloaded = false;
+        changes = 0;
+    }
+}
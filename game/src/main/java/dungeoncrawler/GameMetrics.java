@@ -0,0 +1,151 @@
+package dungeoncrawler;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+// Liczniki i histogramy całego procesu: generowanie, szukanie drogi, rysowanie, kroki i alokacje pętli gry.
+// Zapisy to LongAdder i atomowe inkrementy, więc koszt na kroku jest rzędu nanosekund.
+final class GameMetrics implements GameMetricsMXBean {
+
+    static final GameMetrics GLOBAL = new GameMetrics();
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    final LatencyHistogram generationNanos = new LatencyHistogram();
+    final LatencyHistogram searchNanos = new LatencyHistogram();
+    final LongAdder searchNodes = new LongAdder();
+    final LatencyHistogram paintNanos = new LatencyHistogram();
+    final LongAdder steps = new LongAdder();
+    final LatencyHistogram tickAllocatedBytes = new LatencyHistogram();
+
+    // Tempo kroków liczone z przyrostu licznika, najwyżej raz na sekundę
+    private long rateNanos = System.nanoTime();
+    private long rateSteps;
+    private double stepsPerSecond;
+
+    private GameMetrics() {
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                return counter;
+            }
+        }
+        return null;
+    }
+
+    static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName("dungeoncrawler:type=GameMetrics"));
+        } catch (JMException e) {
+            System.err.println("GameMetrics MBean not registered: " + e.getMessage());
+        }
+    }
+
+    // Bajty zaalokowane dotąd przez bieżący wątek albo -1, gdy JVM tego nie udostępnia
+    static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    @Override
+    public long getGenerations() {
+        return generationNanos.count();
+    }
+
+    @Override
+    public long getGenerationP50Micros() {
+        return generationNanos.percentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getGenerationP99Micros() {
+        return generationNanos.percentile(0.99) / 1000;
+    }
+
+    @Override
+    public long getSearches() {
+        return searchNanos.count();
+    }
+
+    @Override
+    public long getSearchP50Micros() {
+        return searchNanos.percentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getSearchP99Micros() {
+        return searchNanos.percentile(0.99) / 1000;
+    }
+
+    @Override
+    public double getNodesPerSearch() {
+        long searches = searchNanos.count();
+        return searches == 0 ? 0 : (double) searchNodes.sum() / searches;
+    }
+
+    @Override
+    public long getPaintP50Micros() {
+        return paintNanos.percentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getPaintP99Micros() {
+        return paintNanos.percentile(0.99) / 1000;
+    }
+
+    @Override
+    public long getSteps() {
+        return steps.sum();
+    }
+
+    @Override
+    public synchronized double getStepsPerSecond() {
+        long now = System.nanoTime();
+        if (now - rateNanos >= 1_000_000_000L) {
+            long total = steps.sum();
+            stepsPerSecond = (total - rateSteps) * 1e9 / (now - rateNanos);
+            rateSteps = total;
+            rateNanos = now;
+        }
+        return stepsPerSecond;
+    }
+
+    @Override
+    public long getTickAllocationP50Bytes() {
+        return tickAllocatedBytes.percentile(0.5);
+    }
+
+    @Override
+    public long getTickAllocationP99Bytes() {
+        return tickAllocatedBytes.percentile(0.99);
+    }
+
+    @Override
+    public long getDroppedLogMessages() {
+        return GameLog.dropped();
+    }
+
+    @Override
+    public boolean isLoggingEnabled() {
+        return GameLog.isEnabled();
+    }
+
+    @Override
+    public void setLoggingEnabled(boolean enabled) {
+        GameLog.setEnabled(enabled);
+    }
+
+    @Override
+    public void reset() {
+        generationNanos.reset();
+        searchNanos.reset();
+        searchNodes.reset();
+        paintNanos.reset();
+        tickAllocatedBytes.reset();
+    }
+}
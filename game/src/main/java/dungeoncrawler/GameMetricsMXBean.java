@@ -0,0 +1,39 @@
+package dungeoncrawler;
+
+// Widok metryk przez JMX (np. jconsole: dungeoncrawler:type=GameMetrics); JMX wymaga publicznego interfejsu
+public interface GameMetricsMXBean {
+
+    long getGenerations();
+
+    long getGenerationP50Micros();
+
+    long getGenerationP99Micros();
+
+    long getSearches();
+
+    long getSearchP50Micros();
+
+    long getSearchP99Micros();
+
+    double getNodesPerSearch();
+
+    long getPaintP50Micros();
+
+    long getPaintP99Micros();
+
+    long getSteps();
+
+    double getStepsPerSecond();
+
+    long getTickAllocationP50Bytes();
+
+    long getTickAllocationP99Bytes();
+
+    long getDroppedLogMessages();
+
+    boolean isLoggingEnabled();
+
+    void setLoggingEnabled(boolean enabled);
+
+    void reset();
+}
@@ -0,0 +1,74 @@
+package dungeoncrawler;
+
+import java.nio.ByteBuffer;
+
+// Binarny protokół serwera gier. Ramka: [długość u16][typ u8][dane], długość liczona od bajtu typu,
+// liczby big-endian. Klient nie dostaje mapy: WELCOME podaje ziarno i wymiary szablonu, a generator
+// jest deterministyczny, więc klient odtwarza loch sam; potem płyną tylko zmiany kafelków (gracz, ślad).
+final class GameProtocol {
+
+    // Klient -> serwer
+    static final byte JOIN = 1;     // i64 ziarno sesji, i32 numer szablonu (-1 = z ziarna)
+    static final byte COMMAND = 2;  // u8 polecenie: GameLoop.UP..RESTART albo AUTO_STEP
+
+    // Serwer -> klient
+    static final byte WELCOME = 3;  // i32 numer szablonu, i64 ziarno lochu, i32 szerokość, wysokość, piętra
+    static final byte STATE = 4;    // u8 flagi, u16 piętro, x, y, i64 kroki, u16 liczba zmian, zmiany: (i32 komórka, u8 kod)
+
+    // Jeden krok solvera po stronie serwera (pierwszy włącza auto-play); RESTART zaczyna sesję od nowa na tym samym lochu
+    static final int AUTO_STEP = 6;
+
+    // Flagi STATE
+    static final int WON = 1;
+    static final int ON_STAIRS = 2;
+    static final int RELOADED = 4; // ślad wyczyszczony (nowa sesja): klient zaczyna od czystej mapy szablonu
+    static final int MORE = 8;     // zmiany nie zmieściły się w ramce: ciąg dalszy w następnych STATE tego samego polecenia
+
+    static final int HEADER = 2;
+    static final int MAX_FRAME = 0xFFFF;
+    // Zmiana kafelka w STATE: komórka jak w Dungeon.cell i kod TileStore
+    static final int CHANGE_BYTES = 5;
+    static final int STATE_BYTES = 1 + 1 + 2 + 2 + 2 + 8 + 2;
+    static final int MAX_CHANGES = (MAX_FRAME - STATE_BYTES) / CHANGE_BYTES;
+    // Piętro, x i y idą jako u16
+    static final int MAX_DIMENSION = 0xFFFF;
+
+    private GameProtocol() {
+    }
+
+    // Szablon, którego pozycji nie da się opisać w STATE
+    static void checkTemplate(Dungeon dungeon) {
+        if (dungeon.width > MAX_DIMENSION || dungeon.height > MAX_DIMENSION || dungeon.floors > MAX_DIMENSION) {
+            throw new IllegalArgumentException("Template too large for the protocol: "
+                    + dungeon.width + "x" + dungeon.height + "x" + dungeon.floors);
+        }
+    }
+
+    static ByteBuffer join(long seed, int template) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER + 13);
+        frame.putShort((short) 13).put(JOIN).putLong(seed).putInt(template);
+        return frame.flip();
+    }
+
+    static ByteBuffer command(int command) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER + 2);
+        frame.putShort((short) 2).put(COMMAND).put((byte) command);
+        return frame.flip();
+    }
+
+    static ByteBuffer welcome(int template, Dungeon dungeon) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER + 25);
+        frame.putShort((short) 25).put(WELCOME).putInt(template).putLong(dungeon.seed)
+                .putInt(dungeon.width).putInt(dungeon.height).putInt(dungeon.floors);
+        return frame.flip();
+    }
+
+    // Długość kompletnej ramki na początku bufora (pozycja..limit) albo -1, jeśli jeszcze nie doszła cała
+    static int frameLength(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER) {
+            return -1;
+        }
+        int length = buffer.getShort(buffer.position()) & 0xFFFF;
+        return buffer.remaining() >= HEADER + length ? length : -1;
+    }
+}
@@ -0,0 +1,424 @@
+package dungeoncrawler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Serwer wielu niezależnych sesji gry w jednej JVM. Jeden wątek selektora NIO (tylko localhost) przyjmuje
+// połączenia i składa ramki GameProtocol, a logika sesji (DungeonGame na wspólnym, niezmiennym szablonie lochu)
+// działa na wątkach wirtualnych, gdy JVM je ma (Java 21+), a w starszej na puli wątków o liczbie rdzeni.
+// Polecenia jednej sesji wykonują się po kolei (najwyżej jedno zadanie sesji naraz), różne sesje równolegle.
+// Odpowiedź wysyła od razu wątek sesji; selektor dopisuje tylko to, czego gniazdo nie przyjęło.
+// Użycie: java GameServer [port] [templates] [width height floors]
+final class GameServer implements Closeable {
+
+    static final int DEFAULT_PORT = 7878;
+    static final int DEFAULT_TEMPLATES = 64;
+    private static final int BACKLOG = 4096;
+    private static final int READ_BUFFER = 256;
+    private static final int JOIN_COMMAND = -1;
+
+    private final Dungeon[] templates;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final boolean virtualThreads;
+    private final Thread selectorThread;
+    private final Queue<Session> pendingWrites = new ConcurrentLinkedQueue<>();
+    private volatile boolean stopped;
+
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final LongAdder commands = new LongAdder();
+    private final LatencyHistogram commandNanos = new LatencyHistogram();
+
+    // port 0 = dowolny wolny port (np. serwer w tej samej JVM co LoadClient)
+    GameServer(int port, Dungeon[] templates) throws IOException {
+        for (Dungeon template : templates) {
+            GameProtocol.checkTemplate(template);
+        }
+        this.templates = templates;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        workers = virtual != null ? virtual : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "session-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        selectorThread = new Thread(this::run, "game-server");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    // Szablony lochów z kolejnych ziaren, generowane równolegle; sesje tylko je czytają
+    static Dungeon[] templates(long seed, int count, int width, int height, int floors) {
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) {
+            seeds[i] = seed + i;
+        }
+        return DungeonGenerator.generateBatch(seeds, width, height, floors, MazeCarver.Mode.RECURSIVE_BACKTRACKER,
+                ForkJoinPool.commonPool());
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor przez refleksję, żeby kod budował się na Javie 17; null bez wątków wirtualnych
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    int port() {
+        return server.socket().getLocalPort();
+    }
+
+    boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    int templateCount() {
+        return templates.length;
+    }
+
+    int sessions() {
+        return sessions.get();
+    }
+
+    long commands() {
+        return commands.sum();
+    }
+
+    // Czas wykonania polecenia na serwerze (bez sieci): od wyjęcia z kolejki sesji do wysłania STATE
+    LatencyHistogram commandNanos() {
+        return commandNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopped = true;
+        selector.wakeup();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void run() {
+        try {
+            while (!stopped) {
+                selector.select();
+                Session pending;
+                while ((pending = pendingWrites.poll()) != null) {
+                    pending.requestWrite();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else if (key.isValid()) {
+                        handle((Session) key.attachment(), key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!stopped) {
+                System.err.println("Game server stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Session session = new Session(channel);
+            session.key = channel.register(selector, SelectionKey.OP_READ, session);
+            sessions.incrementAndGet();
+        }
+    }
+
+    // Zerwane połączenie albo błędna ramka kończą tylko tę sesję
+    private void handle(Session session, SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                session.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                session.flush();
+            }
+        } catch (IOException | CancelledKeyException e) {
+            session.close();
+        }
+    }
+
+    private final class Session implements DungeonGame.TileListener {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+        private final Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Ramki, których gniazdo jeszcze nie przyjęło; pod blokadą sesji
+        private final ArrayDeque<ByteBuffer> outgoing = new ArrayDeque<>();
+
+        // Wątek selektora; JOIN przekazuje je zadaniu sesji przez kolejkę (happens-before)
+        private boolean joined;
+        private long joinSeed;
+        private int joinTemplate;
+
+        // Tylko zadanie sesji
+        private DungeonGame game;
+        private final IntQueue changed = new IntQueue();
+        private boolean reloaded;
+
+        Session(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            int length;
+            while ((length = GameProtocol.frameLength(in)) >= 0) {
+                int end = in.position() + GameProtocol.HEADER + length;
+                in.position(in.position() + GameProtocol.HEADER);
+                byte type = length > 0 ? in.get() : 0;
+                if (type == GameProtocol.JOIN && length == 13 && !joined) {
+                    joined = true;
+                    joinSeed = in.getLong();
+                    joinTemplate = in.getInt();
+                    submit(JOIN_COMMAND);
+                } else if (type == GameProtocol.COMMAND && length == 2 && joined) {
+                    int command = in.get();
+                    if (command < 0 || command > GameProtocol.AUTO_STEP) {
+                        throw new IOException("Unknown command " + command);
+                    }
+                    submit(command);
+                } else {
+                    throw new IOException("Unexpected frame " + type + " of length " + length);
+                }
+                in.position(end);
+            }
+            in.compact();
+            if (!in.hasRemaining()) {
+                throw new IOException("Frame larger than " + READ_BUFFER + " bytes");
+            }
+        }
+
+        private void submit(int command) {
+            queue.add(command);
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this::drain);
+            }
+        }
+
+        // Zadanie sesji: wszystkie czekające polecenia po kolei, po każdym STATE
+        private void drain() {
+            Integer command;
+            while ((command = queue.poll()) != null && !closed.get()) {
+                long start = System.nanoTime();
+                try {
+                    execute(command);
+                } catch (RuntimeException e) {
+                    System.err.println("Session failed: " + e);
+                    close();
+                    return;
+                }
+                sendState();
+                commandNanos.record(System.nanoTime() - start);
+                commands.increment();
+            }
+            scheduled.set(false);
+            // Polecenie dodane między poll a set(false) nie może czekać na następne
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                workers.execute(this::drain);
+            }
+        }
+
+        private void execute(int command) {
+            if (command == JOIN_COMMAND) {
+                int template = joinTemplate >= 0 ? joinTemplate % templates.length
+                        : (int) Math.floorMod(joinSeed, (long) templates.length);
+                game = new DungeonGame(templates[template], joinSeed);
+                game.setLogging(false);
+                game.setTileListener(this);
+                reloaded = true;
+                send(GameProtocol.welcome(template, templates[template]));
+            } else if (command == GameProtocol.AUTO_STEP) {
+                if (!game.isAutoPlay()) {
+                    game.setAutoPlay(true);
+                }
+                game.autoStep();
+            } else if (command == GameLoop.RESTART) {
+                game.resetSession();
+            } else {
+                // Ręczny ruch unieważnia trasę auto-play; następny AUTO_STEP zaplanuje ją od nowa
+                if (game.isAutoPlay()) {
+                    game.setAutoPlay(false);
+                }
+                GameLoop.execute(game, false, command);
+            }
+        }
+
+        @Override
+        public void tileChanged(int floor, int x, int y) {
+            changed.add(game.getDungeon().cell(x, y, floor));
+        }
+
+        @Override
+        public void dungeonLoaded() {
+            reloaded = true;
+            changed.clear();
+        }
+
+        // Stan po poleceniu; zmiany ponad jedną ramkę idą w kolejnych ramkach z flagą MORE (ostatnia bez niej),
+        // więc lustro klienta nigdy nie gubi kafelków
+        private void sendState() {
+            Dungeon dungeon = game.getDungeon();
+            if (reloaded) {
+                // Pole gracza zgłoszone przed dungeonLoaded; klient zaczyna od czystej mapy, więc dopisujemy je tutaj
+                changed.add(dungeon.cell(game.getPlayerX(), game.getPlayerY(), game.getCurrentFloor()));
+            }
+            do {
+                send(state(dungeon));
+            } while (!changed.isEmpty());
+        }
+
+        private ByteBuffer state(Dungeon dungeon) {
+            int count = Math.min(changed.size(), GameProtocol.MAX_CHANGES);
+            int length = GameProtocol.STATE_BYTES + count * GameProtocol.CHANGE_BYTES;
+            ByteBuffer frame = ByteBuffer.allocate(GameProtocol.HEADER + length);
+            int flags = (game.isGameWon() ? GameProtocol.WON : 0)
+                    | (game.isOnStairTile() ? GameProtocol.ON_STAIRS : 0)
+                    | (reloaded ? GameProtocol.RELOADED : 0)
+                    | (changed.size() > count ? GameProtocol.MORE : 0);
+            // Wymiary szablonów sprawdzone w konstruktorze, więc piętro i pozycja mieszczą się w u16
+            frame.putShort((short) length).put(GameProtocol.STATE).put((byte) flags)
+                    .putShort((short) game.getCurrentFloor())
+                    .putShort((short) game.getPlayerX())
+                    .putShort((short) game.getPlayerY())
+                    .putLong(game.getSteps())
+                    .putShort((short) count);
+            for (int i = 0; i < count; i++) {
+                int cell = changed.poll();
+                char tile = game.tileAt(dungeon.cellFloor(cell), dungeon.cellX(cell), dungeon.cellY(cell));
+                frame.putInt(cell).put((byte) TileStore.code(tile));
+            }
+            reloaded = false;
+            return frame.flip();
+        }
+
+        // Próba zapisu od razu z wątku sesji; resztę dopisze selektor, gdy gniazdo będzie gotowe
+        private void send(ByteBuffer frame) {
+            synchronized (this) {
+                if (outgoing.isEmpty()) {
+                    try {
+                        channel.write(frame);
+                    } catch (IOException e) {
+                        close();
+                        return;
+                    }
+                    if (!frame.hasRemaining()) {
+                        return;
+                    }
+                }
+                outgoing.add(frame);
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        // Wątek selektora
+        synchronized void requestWrite() {
+            if (!outgoing.isEmpty() && key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        synchronized void flush() throws IOException {
+            ByteBuffer frame;
+            while ((frame = outgoing.peek()) != null) {
+                channel.write(frame);
+                if (frame.hasRemaining()) {
+                    return;
+                }
+                outgoing.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                sessions.decrementAndGet();
+                if (key != null) {
+                    key.cancel();
+                }
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Gniazdo i tak znika razem z sesją
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TEMPLATES;
+        int width = args.length > 4 ? Integer.parseInt(args[2]) : DungeonGame.DEFAULT_WIDTH;
+        int height = args.length > 4 ? Integer.parseInt(args[3]) : DungeonGame.DEFAULT_HEIGHT;
+        int floors = args.length > 4 ? Integer.parseInt(args[4]) : DungeonGame.DEFAULT_FLOORS;
+
+        try (GameServer server = new GameServer(port, templates(1, count, width, height, floors))) {
+            System.out.println("Listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.port()
+                    + ", " + count + " templates " + width + "x" + height + "x" + floors + ", "
+                    + (server.usesVirtualThreads() ? "virtual threads" : "thread pool (no virtual threads in this JVM)"));
+            long last = server.commands();
+            while (true) {
+                TimeUnit.SECONDS.sleep(1);
+                long now = server.commands();
+                LatencyHistogram nanos = server.commandNanos();
+                System.out.printf("sessions %d, commands/s %d, command p50 %d us, p99 %d us%n", server.sessions(), now - last,
+                        nanos.percentile(0.5) / 1000, nanos.percentile(0.99) / 1000);
+                last = now;
+            }
+        }
+    }
+}
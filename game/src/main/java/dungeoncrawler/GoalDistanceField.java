@@ -0,0 +1,118 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// Odległość do celu z każdej komórki lochu: jeden BFS wstecz od 'G' po wszystkich piętrach,
+// wspólny dla dowolnej liczby graczy na tym samym lochu. Obok odległości bajt kierunku następnego
+// kroku, więc krok po polu to odczyt jednej komórki, bez zaglądania do kafelków.
+// Ruchy jak w BfsPathfinder: krok na sąsiada, który nie jest '#', a 'U'/'D' przenoszą na to samo x, y
+// sąsiedniego piętra, także na ścianę, z której schodzi się na otwartego sąsiada.
+// Trzy bajty na komórkę: odległość jako u16 (dalsze pola doliczane po kierunkach) i bajt kierunku.
+// Mapa lochu się nie zmienia, więc pole liczy się raz na loch (Dungeon.goalField).
+final class GoalDistanceField {
+
+    // Kody następnego kroku: 0 = brak (cel albo nieosiągalne), 1..4 = kierunek DX/DY + 1, 5/6 = schody w górę/w dół
+    static final byte NONE = 0;
+    static final byte UP = 5;
+    static final byte DOWN = 6;
+
+    // Odległość do FAR zapisana wprost, FAR i więcej doliczana; UNREACHABLE = z tej komórki nie da się dojść do celu
+    private static final char FAR = 0xFFFE;
+    private static final char UNREACHABLE = 0xFFFF;
+
+    private final Dungeon d;
+    private final char[] distance;
+    private final byte[] next;
+
+    // Trzy bajty na komórkę całego lochu na stercie: nie dla lochów czytanych z mapowania (tam StairRoute)
+    static boolean fits(Dungeon d) {
+        return !(d.tiles instanceof MappedTileStore) && d.cellCount() <= Integer.MAX_VALUE - 8;
+    }
+
+    GoalDistanceField(Dungeon d) {
+        Pathfinder.checkCapacity(d.cellCount());
+        this.d = d;
+        int cells = (int) d.cellCount();
+        distance = new char[cells];
+        next = new byte[cells];
+        Arrays.fill(distance, UNREACHABLE);
+
+        TileStore tiles = d.tiles;
+        int width = d.width, height = d.height, floorSize = d.floorSize;
+        int goal = d.cell(d.goalX, d.goalY, d.goalFloor);
+        int[] queue = new int[cells];
+        int head = 0, tail = 0;
+        distance[goal] = 0;
+        queue[tail++] = goal;
+
+        while (head < tail) {
+            int current = queue[head++];
+            int floor = d.cellFloor(current);
+            int x = d.cellX(current), y = d.cellY(current);
+            char stepDistance = (char) Math.min(distance[current] + 1, FAR);
+
+            // Na otwarte pole wchodzi się z sąsiada: otwartego albo ze ściany, na którą prowadzą schody
+            if (tiles.get(floor, x, y) != '#') {
+                for (int dir = 0; dir < 4; dir++) {
+                    int px = x - Pathfinder.DX[dir], py = y - Pathfinder.DY[dir];
+                    if (px < 0 || px >= width || py < 0 || py >= height) {
+                        continue;
+                    }
+                    int previous = current - Pathfinder.DY[dir] * width - Pathfinder.DX[dir];
+                    if (distance[previous] == UNREACHABLE
+                            && (tiles.get(floor, px, py) != '#' || Pathfinder.isLanding(tiles, floor, px, py))) {
+                        distance[previous] = stepDistance;
+                        next[previous] = (byte) (dir + 1);
+                        queue[tail++] = previous;
+                    }
+                }
+            }
+
+            // Na każde pole (także ścianę) schodzi się schodami z tego samego x, y piętra niżej lub wyżej
+            if (floor > 0 && distance[current - floorSize] == UNREACHABLE && tiles.get(floor - 1, x, y) == 'U') {
+                distance[current - floorSize] = stepDistance;
+                next[current - floorSize] = UP;
+                queue[tail++] = current - floorSize;
+            }
+            if (floor < d.floors - 1 && distance[current + floorSize] == UNREACHABLE && tiles.get(floor + 1, x, y) == 'D') {
+                distance[current + floorSize] = stepDistance;
+                next[current + floorSize] = DOWN;
+                queue[tail++] = current + floorSize;
+            }
+        }
+    }
+
+    Dungeon dungeon() {
+        return d;
+    }
+
+    // Liczba kroków do celu albo -1
+    int distance(int cell) {
+        if (distance[cell] == UNREACHABLE) {
+            return -1;
+        }
+        // Tylko w lochach z drogami dłuższymi niż 65534 kroki: do pola z dokładną odległością krok po kroku
+        int steps = 0;
+        while (distance[cell] == FAR) {
+            cell = nextCell(cell);
+            steps++;
+        }
+        return steps + distance[cell];
+    }
+
+    // Komórka po jednym kroku najkrótszej drogi albo -1 na celu i tam, skąd celu nie widać
+    int nextCell(int cell) {
+        byte code = next[cell];
+        if (code == NONE) {
+            return -1;
+        }
+        if (code == UP) {
+            return cell + d.floorSize;
+        }
+        if (code == DOWN) {
+            return cell - d.floorSize;
+        }
+        int dir = code - 1;
+        return cell + Pathfinder.DY[dir] * d.width + Pathfinder.DX[dir];
+    }
+}
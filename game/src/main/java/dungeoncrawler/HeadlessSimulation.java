@@ -0,0 +1,123 @@
+package dungeoncrawler;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+// Tryb wsadowy bez Swinga: N gier auto-play z kolejnych ziaren, bez 20 ms taktowania Timera.
+// Użycie: java HeadlessSimulation [games] [seed] [threads] [width height floors] [RECURSIVE_BACKTRACKER|WILSON|ELLER|BINARY_TREE]
+//        [BFS|A_STAR|BIDIRECTIONAL|JUMP_POINT|JUNCTION|FIELD] [residentFloors]
+// FIELD: auto-play jak w grze, po polu odległości do celu (jedno BFS wstecz na loch) zamiast planowania tras
+// residentFloors > 0: piętra generowane leniwie (LazyTileStore), najwyżej tyle naraz w pamięci; planowanie
+// w obrębie piętra, rodzaj labiryntu i solver nie mają wtedy znaczenia
+public class HeadlessSimulation {
+
+    // Lochy generowane są partiami (do ok. 4M komórek naraz), żeby nie trzymać w pamięci całego przebiegu
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final long BATCH_CELLS = 1L << 22;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int width = args.length > 5 ? Integer.parseInt(args[3]) : DungeonGame.DEFAULT_WIDTH;
+        int height = args.length > 5 ? Integer.parseInt(args[4]) : DungeonGame.DEFAULT_HEIGHT;
+        int floors = args.length > 5 ? Integer.parseInt(args[5]) : DungeonGame.DEFAULT_FLOORS;
+        MazeCarver.Mode mode = args.length > 6 ? MazeCarver.Mode.valueOf(args[6]) : MazeCarver.Mode.RECURSIVE_BACKTRACKER;
+        String solverName = args.length > 7 ? args[7] : Pathfinder.Algorithm.BFS.name();
+        Pathfinder.Algorithm solver = solverName.equals("FIELD") ? null : Pathfinder.Algorithm.valueOf(solverName);
+        int residentFloors = args.length > 8 ? Integer.parseInt(args[8]) : 0;
+
+        long cells = (long) width * height * floors;
+        // Zabezpieczenie przed grą, która po teleportacji krąży między piętrami bez końca
+        long maxSteps = 100 * cells;
+        int batchSize = (int) Math.max(1, Math.min(MAX_BATCH_SIZE, BATCH_CELLS / cells));
+
+        AtomicInteger wins = new AtomicInteger();
+        LongAdder totalPathLength = new LongAdder();
+        LongAdder totalSteps = new LongAdder();
+        LongAccumulator minPathLength = new LongAccumulator(Math::min, Integer.MAX_VALUE);
+        LongAccumulator maxPathLength = new LongAccumulator(Math::max, 0);
+        AtomicLong generationNanos = new AtomicLong();
+        LongAdder searches = new LongAdder();
+        LongAdder expandedNodes = new LongAdder();
+        LongAdder searchNanos = new LongAdder();
+        LongAccumulator maxResident = new LongAccumulator(Math::max, 0);
+        LongAdder generatedFloors = new LongAdder();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        for (int from = 0; from < games; from += batchSize) {
+            int count = Math.min(batchSize, games - from);
+            long[] seeds = new long[count];
+            for (int i = 0; i < count; i++) {
+                seeds[i] = seed + from + i;
+            }
+
+            long genStart = System.nanoTime();
+            Dungeon[] dungeons = residentFloors > 0 ? null
+                    : DungeonGenerator.generateBatch(seeds, width, height, floors, mode, pool);
+            generationNanos.addAndGet(System.nanoTime() - genStart);
+
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(i -> {
+                DungeonGame game = residentFloors > 0
+                        ? new DungeonGame(seeds[i], width, height, floors, residentFloors)
+                        : new DungeonGame(dungeons[i], seeds[i]);
+                game.setLogging(false);
+                if (solver != null) {
+                    game.setPathfinder(Pathfinder.create(solver));
+                }
+                game.setAutoPlay(true);
+
+                int pathLength = game.getAutoPathLength();
+                totalPathLength.add(pathLength);
+                minPathLength.accumulate(pathLength);
+                maxPathLength.accumulate(pathLength);
+
+                while (game.getSteps() < maxSteps && game.autoStep()) {
+                    // Gramy do wygranej albo do końca ścieżki
+                }
+
+                totalSteps.add(game.getSteps());
+                if (solver != null) {
+                    SearchStats stats = game.getPathfinder().stats();
+                    searches.add(stats.searches());
+                    expandedNodes.add(stats.expanded());
+                    searchNanos.add(stats.nanos());
+                }
+                if (game.getDungeon().tiles instanceof LazyTileStore) {
+                    LazyTileStore lazy = (LazyTileStore) game.getDungeon().tiles;
+                    maxResident.accumulate(lazy.peakResidentFloors());
+                    generatedFloors.add(lazy.generatedFloors());
+                }
+                if (game.isGameWon()) {
+                    wins.incrementAndGet();
+                }
+            })).join();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        double seconds = elapsed / 1_000_000_000.0;
+        System.out.println("Games:            " + games + " (seeds " + seed + ".." + (seed + games - 1) + ")");
+        System.out.println("Map:              " + width + "x" + height + "x" + floors + " "
+                + (residentFloors > 0 ? "lazy" : mode.toString()));
+        System.out.println("Threads:          " + threads);
+        System.out.println("Wins:             " + wins.get());
+        System.out.printf("Games/sec:        %.1f%n", games / seconds);
+        System.out.printf("Dungeons/sec:     %.1f (generation only)%n", games / (generationNanos.get() / 1_000_000_000.0));
+        System.out.printf("Path length:      avg %.1f, min %d, max %d%n",
+                (double) totalPathLength.sum() / games, games == 0 ? 0 : minPathLength.get(), maxPathLength.get());
+        System.out.printf("Steps per game:   %.1f%n", (double) totalSteps.sum() / games);
+        if (residentFloors > 0) {
+            System.out.printf("Lazy floors:      at most %d resident (limit %d), %.1f generated per game%n",
+                    maxResident.get(), residentFloors, (double) generatedFloors.sum() / games);
+        }
+        System.out.printf("Solver:           %s, %d searches, %.1f nodes and %.1f us per search%n", solverName, searches.sum(),
+                (double) expandedNodes.sum() / Math.max(1, searches.sum()), searchNanos.sum() / 1000.0 / Math.max(1, searches.sum()));
+        System.out.printf("Elapsed:          %.3f s%n", seconds);
+    }
+}
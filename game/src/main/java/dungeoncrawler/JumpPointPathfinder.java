@@ -0,0 +1,180 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// Jump point search dla siatki 4-sąsiedztwa: z punktu skoku idziemy prosto, aż trafimy na komórkę,
+// w której da się skręcić (otwarty sąsiad prostopadle), na schody albo na cel; proste odcinki
+// korytarzy nie trafiają do kolejki. Najkrótsza droga skręca tylko w takich komórkach, więc A*
+// po punktach skoku (koszt = długość skoku) daje tę samą długość co BFS.
+final class JumpPointPathfinder implements Pathfinder {
+
+    private int[] cost = new int[0];
+    private int[] stamp = new int[0];
+    private int[] parent = new int[0];
+    private byte[] arrival = new byte[0]; // kierunek wejścia + 1, 0 = start albo lądowanie
+    private int search;
+    private long expanded;
+    private final LongHeap open = new LongHeap();
+    private final SearchStats stats = new SearchStats();
+
+    private int width, height, floors, floorSize;
+    private int goalX, goalY, goalFloor;
+
+    @Override
+    public int findPathToGoal(Dungeon d, int startX, int startY, int startFloor, IntQueue path) {
+        long startNanos = System.nanoTime();
+        path.clear();
+        int start = d.cell(startX, startY, startFloor);
+        int goal = d.cell(d.goalX, d.goalY, d.goalFloor);
+        expanded = 0;
+
+        if (d.tiles.get(d.goalFloor, d.goalX, d.goalY) == 'G' && search(d.tiles, start, goal, true)) {
+            // Odcinki między punktami skoku rozwijane od celu do startu
+            for (int c = goal; c != start; ) {
+                int p = parent[c];
+                if (p / floorSize != c / floorSize) {
+                    path.addFirst(c);
+                } else {
+                    int step = p / width == c / width ? (p > c ? 1 : -1) : (p > c ? width : -width);
+                    for (int cell = c; cell != p; cell += step) {
+                        path.addFirst(cell);
+                    }
+                }
+                c = p;
+            }
+        }
+        stats.record(expanded, System.nanoTime() - startNanos);
+        return path.size();
+    }
+
+    @Override
+    public boolean isReachable(TileStore tiles, int floor, int startX, int startY, int goalX, int goalY) {
+        long startNanos = System.nanoTime();
+        int base = floor * tiles.width() * tiles.height();
+        boolean found = search(tiles, base + startY * tiles.width() + startX, base + goalY * tiles.width() + goalX, false);
+        stats.record(expanded, System.nanoTime() - startNanos);
+        return found;
+    }
+
+    @Override
+    public SearchStats stats() {
+        return stats;
+    }
+
+    private boolean search(TileStore tiles, int start, int goal, boolean stairs) {
+        width = tiles.width();
+        height = tiles.height();
+        floors = tiles.floors();
+        floorSize = width * height;
+        goalFloor = goal / floorSize;
+        goalX = goal % width;
+        goalY = (goal % floorSize) / width;
+        prepare((long) floorSize * floors);
+        expanded = 0;
+
+        open.clear();
+        visit(start, 0, start, (byte) 0);
+
+        while (!open.isEmpty()) {
+            long entry = open.poll();
+            int current = (int) entry;
+            int g = cost[current];
+            if ((int) (entry >>> 32) != g + heuristic(current)) {
+                continue;
+            }
+            expanded++;
+            if (current == goal) {
+                return true;
+            }
+
+            int floor = current / floorSize;
+            int x = current % width;
+            int y = (current % floorSize) / width;
+            int back = arrival[current] == 0 ? -1 : (arrival[current] - 1 + 2) % 4;
+            for (int dir = 0; dir < 4; dir++) {
+                if (dir != back) {
+                    jump(tiles, current, floor, x, y, dir, g, goal, stairs);
+                }
+            }
+
+            if (stairs) {
+                char tile = tiles.get(floor, x, y);
+                if (tile == 'U' && floor < floors - 1) {
+                    relax(current + floorSize, g + 1, current, (byte) 0);
+                } else if (tile == 'D' && floor > 0) {
+                    relax(current - floorSize, g + 1, current, (byte) 0);
+                }
+            }
+        }
+        return false;
+    }
+
+    // Skok w kierunku dir; pierwszy punkt skoku trafia do kolejki, ślepy zaułek nie daje nic
+    private void jump(TileStore tiles, int from, int floor, int x, int y, int dir, int g, int goal, boolean stairs) {
+        int dx = DX[dir], dy = DY[dir];
+        int cell = from;
+        int steps = 0;
+        while (true) {
+            x += dx;
+            y += dy;
+            if (x < 0 || x >= width || y < 0 || y >= height) {
+                return;
+            }
+            char tile = tiles.get(floor, x, y);
+            if (tile == '#') {
+                return;
+            }
+            cell += dy * width + dx;
+            steps++;
+
+            boolean turn = dx != 0
+                    ? open(tiles, floor, x, y - 1) || open(tiles, floor, x, y + 1)
+                    : open(tiles, floor, x - 1, y) || open(tiles, floor, x + 1, y);
+            boolean stair = stairs && ((tile == 'U' && floor < floors - 1) || (tile == 'D' && floor > 0));
+            if (cell == goal || turn || stair) {
+                relax(cell, g + steps, from, (byte) (dir + 1));
+                return;
+            }
+        }
+    }
+
+    private boolean open(TileStore tiles, int floor, int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && tiles.get(floor, x, y) != '#';
+    }
+
+    private void relax(int cell, int g, int from, byte dir) {
+        if (stamp[cell] != search || g < cost[cell]) {
+            visit(cell, g, from, dir);
+        }
+    }
+
+    private void visit(int cell, int g, int from, byte dir) {
+        stamp[cell] = search;
+        cost[cell] = g;
+        parent[cell] = from;
+        arrival[cell] = dir;
+        open.add(((long) (g + heuristic(cell)) << 32) | cell);
+    }
+
+    private int heuristic(int cell) {
+        int floor = cell / floorSize;
+        int x = cell % width;
+        int y = (cell % floorSize) / width;
+        return Math.abs(x - goalX) + Math.abs(y - goalY) + Math.abs(floor - goalFloor);
+    }
+
+    private void prepare(long cells) {
+        Pathfinder.checkCapacity(cells);
+        if (stamp.length < cells) {
+            cost = new int[(int) cells];
+            stamp = new int[(int) cells];
+            parent = new int[(int) cells];
+            arrival = new byte[(int) cells];
+            search = 0;
+        }
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+    }
+}
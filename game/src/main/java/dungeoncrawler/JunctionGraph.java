@@ -0,0 +1,394 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// Graf skrzyżowań: korytarze (otwarte pola z dokładnie dwoma otwartymi sąsiadami) zwinięte do krawędzi
+// o wadze równej długości korytarza. Węzły to skrzyżowania, ślepe zaułki, schody, cel i pola lądowania
+// (ściana, na którą prowadzą schody, razem z jej otwartymi sąsiadami). Labirynt doskonały ma kilka razy
+// mniej węzłów niż otwartych pól, więc Dijkstra po grafie przegląda ułamek tego, co BFS po komórkach.
+// Krawędź pamięta tylko kierunek pierwszego kroku; komórki korytarza odtwarza przejście nim do następnego węzła.
+// Komórki jak w Dungeon.cell. Graf opisuje kafelki z chwili budowy: nadpisana ściana, schody albo cel go unieważniają.
+final class JunctionGraph {
+
+    // Kierunki krawędzi: 0..3 jak DX/DY, 4/5 = schody w górę/w dół
+    private static final byte UP = 4;
+    private static final byte DOWN = 5;
+
+    private final TileStore tiles;
+    private final int width, height, floors, floorSize;
+    private final long[] openBits;   // bit na komórkę: czy nie jest ścianą (przejścia bez czytania kafelków)
+    private final long[] nodeBits;   // bit na komórkę: czy to węzeł
+    private final int[] nodeCell;    // rosnąco, więc numer węzła to wyszukiwanie binarne
+    // Krawędzie węzła i to [edgeStart[i], edgeStart[i + 1])
+    private final int[] edgeStart;
+    private final int[] edgeTarget;
+    private final int[] edgeLength;
+    private final byte[] edgeDir;
+    private final int goal;          // węzeł celu albo -1
+
+    // Bufory wyszukiwania; węzeł jest osiągnięty w bieżącym wyszukiwaniu, gdy stamp == search
+    private final int[] cost;
+    private final int[] stamp;
+    private final int[] parentNode;  // -1 = węzeł startowy albo koniec korytarza, w którym stoi start
+    private final int[] parentEdge;  // dla parentNode == -1: kierunek ze startu w korytarz albo -1
+    private final LongHeap open = new LongHeap();
+    private final IntQueue queue = new IntQueue();
+    private int search;
+    private long expanded;
+    private int walked;
+    private boolean metStop;
+
+    JunctionGraph(TileStore tiles) {
+        this.tiles = tiles;
+        width = tiles.width();
+        height = tiles.height();
+        floors = tiles.floors();
+        floorSize = width * height;
+        long cells = (long) floorSize * floors;
+        Pathfinder.checkCapacity(cells);
+        openBits = new long[(int) ((cells + 63) >>> 6)];
+        nodeBits = new long[openBits.length];
+
+        // Jeden odczyt kafelka na komórkę: mapa przejść, schody i cel są węzłami
+        IntQueue stairs = new IntQueue();
+        int goalCell = -1;
+        for (int f = 0, cell = 0; f < floors; f++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++, cell++) {
+                    char tile = tiles.get(f, x, y);
+                    if (tile == '#') {
+                        continue;
+                    }
+                    openBits[cell >>> 6] |= 1L << cell;
+                    if (tile == 'U' || tile == 'D') {
+                        stairs.add(cell);
+                        setNode(cell);
+                    } else if (tile == 'G') {
+                        goalCell = cell;
+                        setNode(cell);
+                    }
+                }
+            }
+        }
+        // Pozostałe węzły: otwarte pola, które nie są środkiem korytarza
+        for (int f = 0, cell = 0; f < floors; f++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++, cell++) {
+                    if (isOpen(f, x, y) && openNeighbours(f, x, y) != 2) {
+                        setNode(cell);
+                    }
+                }
+            }
+        }
+
+        // Lądowania: krawędź schodów musi kończyć się w węźle, a ze ściany lądowania wychodzi się na sąsiadów
+        for (int i = 0; i < stairs.size(); i++) {
+            int cell = stairs.get(i);
+            int f = cell / floorSize;
+            boolean up = tiles.get(f, cellX(cell), cellY(cell)) == 'U';
+            if (up ? f == floors - 1 : f == 0) {
+                continue;
+            }
+            int landing = cell + (up ? floorSize : -floorSize);
+            int lf = f + (up ? 1 : -1), x = cellX(landing), y = cellY(landing);
+            setNode(landing);
+            if (!isOpen(lf, x, y)) {
+                for (int dir = 0; dir < 4; dir++) {
+                    if (isOpen(lf, x + Pathfinder.DX[dir], y + Pathfinder.DY[dir])) {
+                        setNode(landing + Pathfinder.DY[dir] * width + Pathfinder.DX[dir]);
+                    }
+                }
+            }
+        }
+
+        int count = 0;
+        for (long word : nodeBits) {
+            count += Long.bitCount(word);
+        }
+        nodeCell = new int[count];
+        int n = 0;
+        for (int w = 0; w < nodeBits.length; w++) {
+            for (long word = nodeBits[w]; word != 0; word &= word - 1) {
+                nodeCell[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+
+        // Najwyżej cztery kierunki i jedne schody na węzeł
+        edgeStart = new int[count + 1];
+        int[] targets = new int[count * 5];
+        int[] lengths = new int[count * 5];
+        byte[] dirs = new byte[count * 5];
+        int e = 0;
+        for (int i = 0; i < count; i++) {
+            edgeStart[i] = e;
+            int cell = nodeCell[i];
+            int f = cell / floorSize, x = cellX(cell), y = cellY(cell);
+            char tile = tiles.get(f, x, y);
+            for (int dir = 0; dir < 4; dir++) {
+                if (isOpen(f, x + Pathfinder.DX[dir], y + Pathfinder.DY[dir])) {
+                    targets[e] = node(walk(cell, dir, -1, null));
+                    lengths[e] = walked;
+                    dirs[e++] = (byte) dir;
+                }
+            }
+            if (tile == 'U' && f < floors - 1) {
+                targets[e] = node(cell + floorSize);
+                lengths[e] = 1;
+                dirs[e++] = UP;
+            } else if (tile == 'D' && f > 0) {
+                targets[e] = node(cell - floorSize);
+                lengths[e] = 1;
+                dirs[e++] = DOWN;
+            }
+        }
+        edgeStart[count] = e;
+        edgeTarget = Arrays.copyOf(targets, e);
+        edgeLength = Arrays.copyOf(lengths, e);
+        edgeDir = Arrays.copyOf(dirs, e);
+        goal = goalCell < 0 ? -1 : node(goalCell);
+
+        cost = new int[count];
+        stamp = new int[count];
+        parentNode = new int[count];
+        parentEdge = new int[count];
+    }
+
+    // Czy graf zbudowano z tych kafelków (ten sam magazyn)
+    boolean describes(TileStore tiles) {
+        return this.tiles == tiles;
+    }
+
+    int nodeCount() {
+        return nodeCell.length;
+    }
+
+    int edgeCount() {
+        return edgeTarget.length;
+    }
+
+    // Węzły rozwinięte przez ostatnie wyszukiwanie
+    long expanded() {
+        return expanded;
+    }
+
+    // Najkrótsza droga ze start do celu: Dijkstra po węzłach, potem krawędzie rozwinięte do komórek w path (bez startu)
+    int findPathToGoal(int start, IntQueue path) {
+        path.clear();
+        expanded = 0;
+        if (goal < 0 || !begin(start, -1)) {
+            return 0;
+        }
+        while (!open.isEmpty()) {
+            long entry = open.poll();
+            int node = (int) entry;
+            int nodeCost = (int) (entry >>> 32);
+            if (nodeCost != cost[node]) {
+                continue;
+            }
+            expanded++;
+            if (node == goal) {
+                expand(start, node, path);
+                break;
+            }
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                relax(edgeTarget[e], nodeCost + edgeLength[e], node, e);
+            }
+        }
+        return path.size();
+    }
+
+    // Osiągalność w obrębie piętra (bez schodów) między dowolnymi komórkami, jak BfsPathfinder.isReachable
+    boolean isReachable(int start, int target) {
+        expanded = 0;
+        if (start == target) {
+            return true;
+        }
+        int f = target / floorSize;
+        if (!isOpen(f, cellX(target), cellY(target))) {
+            return false;
+        }
+        // Cel w środku korytarza: wystarczy dojść do któregoś z jego końców
+        int targetA, targetB = -1;
+        if (isNode(target)) {
+            targetA = node(target);
+        } else {
+            targetA = -1;
+            for (int dir = 0; dir < 4; dir++) {
+                if (isOpen(f, cellX(target) + Pathfinder.DX[dir], cellY(target) + Pathfinder.DY[dir])) {
+                    int end = walk(target, dir, -1, null);
+                    if (end >= 0 && targetA < 0) {
+                        targetA = node(end);
+                    } else if (end >= 0) {
+                        targetB = node(end);
+                    }
+                }
+            }
+        }
+        if (!begin(start, target)) {
+            return false;
+        }
+        if (metStop) {
+            return true;
+        }
+        // Węzły startowe z kolejki Dijkstry (najwyżej dwa), dalej zwykły BFS po krawędziach piętra
+        queue.clear();
+        while (!open.isEmpty()) {
+            queue.add((int) open.poll());
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            expanded++;
+            if (node == targetA || node == targetB) {
+                return true;
+            }
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                int next = edgeTarget[e];
+                if (edgeDir[e] < UP && stamp[next] != search) {
+                    stamp[next] = search;
+                    queue.add(next);
+                }
+            }
+        }
+        return false;
+    }
+
+    // Nowe wyszukiwanie od komórki start: węzeł albo oba końce korytarza, w którym stoi.
+    // Gdy przejście korytarzem trafi na stop, metStop (start i stop w tym samym korytarzu)
+    private boolean begin(int start, int stop) {
+        metStop = false;
+        if (++search == 0) {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+        open.clear();
+        if (isNode(start)) {
+            relax(node(start), 0, -1, -1);
+            return true;
+        }
+        int f = start / floorSize, x = cellX(start), y = cellY(start);
+        if (!isOpen(f, x, y)) {
+            return false;
+        }
+        boolean reached = false;
+        for (int dir = 0; dir < 4; dir++) {
+            if (isOpen(f, x + Pathfinder.DX[dir], y + Pathfinder.DY[dir])) {
+                int end = walk(start, dir, stop, null);
+                if (end == stop) {
+                    metStop = true;
+                    return true;
+                }
+                if (end >= 0) {
+                    relax(node(end), walked, -1, dir);
+                    reached = true;
+                }
+            }
+        }
+        return reached;
+    }
+
+    private void relax(int node, int nodeCost, int from, int edge) {
+        if (stamp[node] != search || nodeCost < cost[node]) {
+            stamp[node] = search;
+            cost[node] = nodeCost;
+            parentNode[node] = from;
+            parentEdge[node] = edge;
+            open.add(((long) nodeCost << 32) | node);
+        }
+    }
+
+    // Łańcuch węzłów od startu do node, potem każda krawędź rozwinięta do komórek
+    private void expand(int start, int node, IntQueue path) {
+        queue.clear();
+        for (int n = node; n >= 0; n = parentNode[n]) {
+            queue.addFirst(n);
+        }
+        int first = queue.get(0);
+        if (parentEdge[first] >= 0) {
+            walk(start, parentEdge[first], -1, path);
+        }
+        for (int i = 1; i < queue.size(); i++) {
+            int to = queue.get(i);
+            int from = nodeCell[parentNode[to]];
+            byte dir = edgeDir[parentEdge[to]];
+            if (dir == UP) {
+                path.add(from + floorSize);
+            } else if (dir == DOWN) {
+                path.add(from - floorSize);
+            } else {
+                walk(from, dir, -1, path);
+            }
+        }
+    }
+
+    // Z from krok w kierunku dir i dalej korytarzem do pierwszego węzła; zwraca jego komórkę (długość w walked)
+    // albo stop, jeśli korytarz przez nie przechodzi, albo -1 dla korytarza zamkniętego w pętlę bez węzłów
+    private int walk(int from, int dir, int stop, IntQueue path) {
+        int cell = from, length = 0;
+        int f = from / floorSize, x = cellX(from), y = cellY(from);
+        while (true) {
+            x += Pathfinder.DX[dir];
+            y += Pathfinder.DY[dir];
+            cell += Pathfinder.DY[dir] * width + Pathfinder.DX[dir];
+            length++;
+            if (path != null) {
+                path.add(cell);
+            }
+            if (cell == stop) {
+                return stop;
+            }
+            if (isNode(cell)) {
+                walked = length;
+                return cell;
+            }
+            if (cell == from) {
+                return -1;
+            }
+            // Środek korytarza ma dokładnie jednego otwartego sąsiada poza tym, z którego przyszliśmy
+            int back = (dir + 2) & 3;
+            for (int d = 0; d < 4; d++) {
+                if (d != back && isOpen(f, x + Pathfinder.DX[d], y + Pathfinder.DY[d])) {
+                    dir = d;
+                    break;
+                }
+            }
+        }
+    }
+
+    private int openNeighbours(int floor, int x, int y) {
+        int count = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            if (isOpen(floor, x + Pathfinder.DX[dir], y + Pathfinder.DY[dir])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isOpen(int floor, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        int cell = floor * floorSize + y * width + x;
+        return (openBits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private boolean isNode(int cell) {
+        return (nodeBits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private void setNode(int cell) {
+        nodeBits[cell >>> 6] |= 1L << cell;
+    }
+
+    private int node(int cell) {
+        return Arrays.binarySearch(nodeCell, cell);
+    }
+
+    private int cellX(int cell) {
+        return cell % floorSize % width;
+    }
+
+    private int cellY(int cell) {
+        return cell % floorSize / width;
+    }
+}
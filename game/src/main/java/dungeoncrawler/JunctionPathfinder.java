@@ -0,0 +1,46 @@
+package dungeoncrawler;
+
+// Szukanie po grafie skrzyżowań (JunctionGraph) zbudowanym przy pierwszym zapytaniu o dany magazyn kafelków.
+// Budowa to jedno przejście po lochu; potem każde wyszukiwanie rozwija tylko węzły grafu.
+// Gra woła invalidate(), gdy nadpisze ścianę, schody albo cel, i następne zapytanie buduje graf od nowa
+final class JunctionPathfinder implements Pathfinder {
+
+    private JunctionGraph graph;
+    private final SearchStats stats = new SearchStats();
+
+    @Override
+    public int findPathToGoal(Dungeon d, int startX, int startY, int startFloor, IntQueue path) {
+        long startNanos = System.nanoTime();
+        JunctionGraph g = graph(d.tiles);
+        int length = g.findPathToGoal(d.cell(startX, startY, startFloor), path);
+        stats.record(g.expanded(), System.nanoTime() - startNanos);
+        return length;
+    }
+
+    @Override
+    public boolean isReachable(TileStore tiles, int floor, int startX, int startY, int goalX, int goalY) {
+        long startNanos = System.nanoTime();
+        JunctionGraph g = graph(tiles);
+        int base = floor * tiles.width() * tiles.height();
+        boolean found = g.isReachable(base + startY * tiles.width() + startX, base + goalY * tiles.width() + goalX);
+        stats.record(g.expanded(), System.nanoTime() - startNanos);
+        return found;
+    }
+
+    @Override
+    public void invalidate() {
+        graph = null;
+    }
+
+    @Override
+    public SearchStats stats() {
+        return stats;
+    }
+
+    private JunctionGraph graph(TileStore tiles) {
+        if (graph == null || !graph.describes(tiles)) {
+            graph = new JunctionGraph(tiles);
+        }
+        return graph;
+    }
+}
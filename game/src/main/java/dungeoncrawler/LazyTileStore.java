@@ -0,0 +1,276 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.SplittableRandom;
+
+// Loch, którego piętra powstają dopiero przy pierwszym odczycie (zmiana piętra, planowanie trasy)
+// i siedzą w pamięci najwyżej po maxResident naraz, w kolejności LRU. Piętro f wynika wyłącznie z ziarna
+// piętra, a położenie schodów i celu z "kontraktu" wyliczonego z ziarna lochu bez generowania pięter:
+// wszystkie piętra rzeźbione są z parzystego startu, więc pola o parzystych x, y są zawsze otwarte
+// i schody na jednym piętrze zawsze lądują na otwartym polu sąsiedniego. Każde piętro ma 'U' (poza
+// ostatnim) i 'D' (poza pierwszym), a labirynt piętra jest spójny, więc do celu da się dojść bez sprawdzania.
+// Piętro usunięte z pamięci po zapisach przez set zostawia listę różnic względem wersji wygenerowanej
+// i przy powrocie odtwarza się z ziarna plus tej listy (gra trzyma ślad w BitLayer, więc sama tu nie pisze).
+// Używany z jednego wątku (wątku gry).
+final class LazyTileStore implements TileStore {
+
+    private final int width, height, floors;
+    private final long seed;
+    private final MazeCarver.Mode mode;
+    private final int maxResident;
+    private final PackedTileStore tiles;
+    private final FeatureIndex features;
+
+    // Kontrakt schodów i celu; komórki piętra jako y * width + x, -1 gdy brak
+    private final int goalFloor, goalCell;
+    private final int[] up, down;
+
+    // Piętra w pamięci, od najdawniej używanego; wartość: czy piętro zmieniono przez set od wygenerowania
+    private final LinkedHashMap<Integer, Boolean> resident = new LinkedHashMap<>(16, 0.75f, true);
+    // Zapisy na piętrach usuniętych z pamięci: pary (komórka, kod kafelka)
+    private final int[][] changes;
+    private final MazeCarver carver = new MazeCarver();
+    private byte[] from = new byte[0];
+    private final IntQueue queue = new IntQueue();
+    private int lastFloor = -1;
+    private int peakResident;
+    private long generated, evicted;
+
+    LazyTileStore(long seed, int width, int height, int floors, int maxResident) {
+        this(seed, width, height, floors, maxResident, MazeCarver.Mode.RECURSIVE_BACKTRACKER);
+    }
+
+    LazyTileStore(long seed, int width, int height, int floors, int maxResident, MazeCarver.Mode mode) {
+        int lattice = ((width + 1) / 2) * ((height + 1) / 2);
+        if (lattice < 3) {
+            throw new IllegalArgumentException("Floor too small for stairs and goal: " + width + "x" + height);
+        }
+        Pathfinder.checkCapacity((long) width * height * floors);
+        this.width = width;
+        this.height = height;
+        this.floors = floors;
+        this.seed = seed;
+        this.mode = mode;
+        this.maxResident = Math.max(1, maxResident);
+        tiles = PackedTileStore.sparse(width, height, floors);
+        features = new FeatureIndex(width, height, floors);
+        changes = new int[floors][];
+
+        SplittableRandom root = new SplittableRandom(seed);
+        goalFloor = root.nextInt(floors);
+        up = new int[floors];
+        down = new int[floors];
+        int goal = -1;
+        for (int f = 0; f < floors; f++) {
+            // Osobny strumień na piętro: kontrakt piętra f nie zależy od tego, ile pięter jest przed nim
+            SplittableRandom contract = new SplittableRandom(floorSeed(f, 1));
+            up[f] = f < floors - 1 ? latticeCell(contract, -1, -1) : -1;
+            down[f] = f > 0 ? latticeCell(contract, up[f], -1) : -1;
+            if (f == goalFloor) {
+                goal = latticeCell(contract, up[f], down[f]);
+            }
+        }
+        goalCell = goal;
+    }
+
+    // Loch na tym magazynie; cel znany z kontraktu, więc nie trzeba generować piętra z celem
+    Dungeon dungeon() {
+        return new Dungeon(this, seed, goalFloor, goalCell % width, goalCell / width, features);
+    }
+
+    // Następne pole docelowe na piętrze: cel albo schody w stronę piętra z celem
+    int target(int floor) {
+        if (floor == goalFloor) {
+            return goalCell;
+        }
+        return floor < goalFloor ? up[floor] : down[floor];
+    }
+
+    // Najkrótsza droga po jednym piętrze do target(floor); komórki jak w Dungeon.cell, bez startu.
+    // Planowanie tylko w obrębie piętra sprawia, że solver nigdy nie dotyka pięter, na których gracza nie ma
+    int findPath(int floor, int startX, int startY, IntQueue path) {
+        load(floor);
+        path.clear();
+        int floorSize = width * height;
+        if (from.length < floorSize) {
+            from = new byte[floorSize];
+        }
+        Arrays.fill(from, 0, floorSize, Pathfinder.UNVISITED);
+        queue.clear();
+        int start = startY * width + startX, target = target(floor);
+        from[start] = Pathfinder.START;
+        queue.add(start);
+        while (!queue.isEmpty() && from[target] == Pathfinder.UNVISITED) {
+            int current = queue.poll();
+            int x = current % width, y = current / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + Pathfinder.DX[dir], ny = y + Pathfinder.DY[dir];
+                int next = current + Pathfinder.DY[dir] * width + Pathfinder.DX[dir];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && from[next] == Pathfinder.UNVISITED
+                        && tiles.get(floor, nx, ny) != '#') {
+                    from[next] = (byte) (dir + 1);
+                    queue.add(next);
+                }
+            }
+        }
+        if (from[target] != Pathfinder.UNVISITED) {
+            for (int c = target; c != start; c = Pathfinder.parentOf(from[c], c, width, floorSize)) {
+                path.addFirst(floor * floorSize + c);
+            }
+        }
+        return path.size();
+    }
+
+    int residentFloors() {
+        return resident.size();
+    }
+
+    // Najwięcej pięter naraz w pamięci od początku; nigdy ponad maxResident
+    int peakResidentFloors() {
+        return peakResident;
+    }
+
+    long generatedFloors() {
+        return generated;
+    }
+
+    long evictedFloors() {
+        return evicted;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public int floors() {
+        return floors;
+    }
+
+    @Override
+    public char get(int floor, int x, int y) {
+        if (floor != lastFloor) {
+            load(floor);
+        }
+        return tiles.get(floor, x, y);
+    }
+
+    @Override
+    public void set(int floor, int x, int y, char tile) {
+        if (floor != lastFloor) {
+            load(floor);
+        }
+        tiles.set(floor, x, y, tile);
+        resident.put(floor, Boolean.TRUE);
+    }
+
+    @Override
+    public void fill(int floor, char tile) {
+        load(floor);
+        tiles.fill(floor, tile);
+        resident.put(floor, Boolean.TRUE);
+    }
+
+    // Piętro w pamięci i na początku kolejki LRU; generowane (z różnicami), jeśli go nie ma
+    @Override
+    public void load(int floor) {
+        lastFloor = floor;
+        if (resident.get(floor) != null) {
+            return;
+        }
+        if (resident.size() >= maxResident) {
+            Iterator<Integer> oldest = resident.keySet().iterator();
+            evict(oldest.next());
+        }
+        generate(floor, tiles, features);
+        int[] diff = changes[floor];
+        if (diff != null) {
+            for (int i = 0; i < diff.length; i += 2) {
+                tiles.set(floor, diff[i] % width, diff[i] / width, TileStore.tile(diff[i + 1]));
+            }
+            changes[floor] = null;
+        }
+        resident.put(floor, diff != null);
+        peakResident = Math.max(peakResident, resident.size());
+    }
+
+    // Zmienione piętro porównujemy z wersją z ziarna (to jedno dodatkowe generowanie) i zostawiamy różnice
+    private void evict(int floor) {
+        if (resident.remove(floor)) {
+            PackedTileStore baseline = PackedTileStore.sparse(width, height, floors);
+            generate(floor, baseline, null);
+            int[] diff = new int[16];
+            int n = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    char tile = tiles.get(floor, x, y);
+                    if (tile != baseline.get(floor, x, y)) {
+                        if (n + 2 > diff.length) {
+                            diff = Arrays.copyOf(diff, diff.length * 2);
+                        }
+                        diff[n++] = y * width + x;
+                        diff[n++] = TileStore.code(tile);
+                    }
+                }
+            }
+            changes[floor] = Arrays.copyOf(diff, n);
+        }
+        tiles.releaseFloor(floor);
+        features.releaseFloor(floor);
+        evicted++;
+    }
+
+    private void generate(int floor, PackedTileStore target, FeatureIndex index) {
+        target.allocateFloor(floor);
+        if (index != null) {
+            index.clearFloor(floor);
+        }
+        SplittableRandom rand = new SplittableRandom(floorSeed(floor, 0));
+        int startX = 2 * rand.nextInt((width + 1) / 2);
+        int startY = 2 * rand.nextInt((height + 1) / 2);
+        carver.carve(target, floor, mode, startX, startY, rand, index);
+
+        place(target, index, floor, up[floor], 'U');
+        place(target, index, floor, down[floor], 'D');
+        if (floor == goalFloor) {
+            target.set(floor, goalCell % width, goalCell / width, 'G');
+            if (index != null) {
+                index.goalPlaced(floor, goalCell);
+            }
+        }
+        if (index != null) {
+            index.sealFloor(target, floor);
+            generated++;
+        }
+    }
+
+    private void place(PackedTileStore target, FeatureIndex index, int floor, int cell, char stairs) {
+        if (cell >= 0) {
+            target.set(floor, cell % width, cell / width, stairs);
+            if (index != null) {
+                index.stairsPlaced(floor, cell, stairs);
+            }
+        }
+    }
+
+    // Losowe pole o parzystych x, y (zawsze otwarte), różne od zajętych a i b
+    private int latticeCell(SplittableRandom rand, int a, int b) {
+        int cell;
+        do {
+            cell = 2 * rand.nextInt((height + 1) / 2) * width + 2 * rand.nextInt((width + 1) / 2);
+        } while (cell == a || cell == b);
+        return cell;
+    }
+
+    private long floorSeed(int floor, int stream) {
+        return new SplittableRandom(seed ^ (floor * 0x9E3779B97F4A7C15L + stream)).nextLong();
+    }
+}
@@ -0,0 +1,205 @@
+package dungeoncrawler;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+// Generator obciążenia dla GameServer: wiele sesji na jednym wątku selektora, każda w zamkniętej pętli
+// (AUTO_STEP, czekanie na STATE, opcjonalna przerwa, następny krok; po wygranej RESTART). Mierzy opóźnienie
+// ruchu od wysłania polecenia do odebrania STATE i przelicza przepustowość na sesje na rdzeń.
+// Bez portu startuje serwer w tej samej JVM (wtedy klient i serwer dzielą rdzenie, wynik jest zaniżony).
+// Użycie: java LoadClient [sessions] [seconds] [think-ms] [port]
+final class LoadClient {
+
+    // Tempo gracza przyjęte do przeliczenia przepustowości na liczbę sesji
+    private static final int MOVES_PER_SESSION_SECOND = 10;
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final Selector selector;
+    private final long thinkNanos;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    // Sesje czekające na koniec przerwy, według czasu wysłania
+    private final PriorityQueue<Connection> waiting = new PriorityQueue<>((a, b) -> Long.compare(a.due, b.due));
+    private boolean measuring;
+    private long moves, wins, changes, errors;
+
+    LoadClient(long thinkNanos) throws IOException {
+        this.selector = Selector.open();
+        this.thinkNanos = thinkNanos;
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+        boolean won;
+        long sentAt, due;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void send(ByteBuffer frame) throws IOException {
+            sentAt = System.nanoTime();
+            // Ramki klienta mają kilka bajtów, bufor gniazda przyjmuje je od razu
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        }
+
+        void next() throws IOException {
+            send(GameProtocol.command(won ? GameLoop.RESTART : GameProtocol.AUTO_STEP));
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                throw new IOException("Server closed the session");
+            }
+            in.flip();
+            int length;
+            while ((length = GameProtocol.frameLength(in)) >= 0) {
+                int end = in.position() + GameProtocol.HEADER + length;
+                in.position(in.position() + GameProtocol.HEADER);
+                byte type = in.get();
+                if (type == GameProtocol.WELCOME) {
+                    in.position(end);
+                    continue; // STATE po JOIN idzie zaraz za WELCOME
+                }
+                if (type != GameProtocol.STATE) {
+                    throw new IOException("Unexpected frame " + type);
+                }
+                int flags = in.get();
+                in.position(in.position() + 3 * Short.BYTES + Long.BYTES); // piętro, x, y, kroki
+                int count = in.getShort() & 0xFFFF;
+                in.position(end);
+                received(flags, count);
+            }
+            in.compact();
+        }
+
+        private void received(int flags, int count) throws IOException {
+            if ((flags & GameProtocol.MORE) != 0) {
+                // Odpowiedź na polecenie kończy dopiero ostatnia ramka
+                if (measuring) {
+                    changes += count;
+                }
+                return;
+            }
+            if (measuring) {
+                latency.record(System.nanoTime() - sentAt);
+                moves++;
+                changes += count;
+                if ((flags & GameProtocol.WON) != 0 && !won) {
+                    wins++;
+                }
+            }
+            won = (flags & GameProtocol.WON) != 0;
+            if (thinkNanos == 0) {
+                next();
+            } else {
+                due = System.nanoTime() + thinkNanos;
+                waiting.add(this);
+            }
+        }
+    }
+
+    Connection connect(InetSocketAddress address, long seed) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel);
+        channel.register(selector, SelectionKey.OP_READ, connection);
+        connection.send(GameProtocol.join(seed, -1));
+        return connection;
+    }
+
+    void run(long warmupNanos, long durationNanos) throws IOException {
+        long start = System.nanoTime();
+        long end = start + warmupNanos + durationNanos;
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            if (!measuring && now - start >= warmupNanos) {
+                measuring = true;
+            }
+            Connection first = waiting.peek();
+            long wait = first == null ? end - now : Math.max(0, first.due - now);
+            if (wait == 0) {
+                selector.selectNow();
+            } else {
+                selector.select(Math.max(1, wait / 1_000_000));
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Connection connection = (Connection) key.attachment();
+                try {
+                    connection.read();
+                } catch (IOException e) {
+                    errors++;
+                    key.cancel();
+                    connection.channel.close();
+                }
+            }
+            now = System.nanoTime();
+            while ((first = waiting.peek()) != null && first.due <= now) {
+                waiting.poll().next();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        GameServer embedded = null;
+        int port;
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        } else {
+            embedded = new GameServer(0, GameServer.templates(1, GameServer.DEFAULT_TEMPLATES,
+                    DungeonGame.DEFAULT_WIDTH, DungeonGame.DEFAULT_HEIGHT, DungeonGame.DEFAULT_FLOORS));
+            port = embedded.port();
+        }
+
+        try {
+            LoadClient client = new LoadClient(thinkMillis * 1_000_000L);
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            long connectStart = System.nanoTime();
+            for (int i = 0; i < sessions; i++) {
+                client.connect(address, 0x5EED_0000L + i);
+            }
+            long connectNanos = System.nanoTime() - connectStart;
+            client.run(1_000_000_000L, seconds * 1_000_000_000L);
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            double movesPerSecond = client.moves / (double) seconds;
+            System.out.println("Server:          " + (embedded == null ? "127.0.0.1:" + port
+                    : "embedded, " + embedded.templateCount() + " templates, "
+                    + (embedded.usesVirtualThreads() ? "virtual threads" : "thread pool")));
+            System.out.printf("Sessions:        %d (connected in %d ms, think %d ms), cores %d%n",
+                    sessions, connectNanos / 1_000_000, thinkMillis, cores);
+            System.out.printf("Moves:           %d in %d s, %.0f/s, %.0f/s per core%n",
+                    client.moves, seconds, movesPerSecond, movesPerSecond / cores);
+            System.out.printf("Wins:            %d, tile changes %d, errors %d%n", client.wins, client.changes, client.errors);
+            System.out.printf("Move latency:    p50 %d us, p99 %d us, max %d us%n", client.latency.percentile(0.5) / 1000,
+                    client.latency.percentile(0.99) / 1000, client.latency.max() / 1000);
+            if (embedded != null) {
+                LatencyHistogram server = embedded.commandNanos();
+                System.out.printf("Server command:  p50 %d us, p99 %d us%n", server.percentile(0.5) / 1000,
+                        server.percentile(0.99) / 1000);
+            }
+            System.out.printf("Sessions/core:   %.0f at %d moves/s per session%n",
+                    movesPerSecond / cores / MOVES_PER_SESSION_SECOND, MOVES_PER_SESSION_SECOND);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// Kopiec minimum longów na tablicy wielokrotnego użytku; dla A* klucz to (f << 32) | komórka,
+// więc bez obiektów na wpis i z remisami rozstrzyganymi po numerze komórki
+final class LongHeap {
+
+    private long[] elements = new long[64];
+    private int size;
+
+    void add(long value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (elements[parent] <= value) {
+                break;
+            }
+            elements[i] = elements[parent];
+            i = parent;
+        }
+        elements[i] = value;
+    }
+
+    long poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        long result = elements[0];
+        long last = elements[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && elements[child + 1] < elements[child]) {
+                child++;
+            }
+            if (last <= elements[child]) {
+                break;
+            }
+            elements[i] = elements[child];
+            i = child;
+        }
+        elements[i] = last;
+        return result;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
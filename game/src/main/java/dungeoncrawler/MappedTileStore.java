@@ -0,0 +1,101 @@
+package dungeoncrawler;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Kafelki czytane wprost z pliku zmapowanego w pamięć, bez kopiowania do sterty.
+// Układ jak w PackedTileStore: 4 bity na komórkę, komórka parzysta w młodszej połówce bajtu,
+// każde piętro wyrównane do pełnych longów. Mapowanie jest dzielone na kawałki po 1 GB,
+// bo pojedynczy MappedByteBuffer sięga najwyżej 2 GB.
+final class MappedTileStore implements TileStore {
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final int width, height, floors;
+    private final long floorBytes;
+    private final MappedByteBuffer[] chunks;
+
+    // READ_WRITE przy zapisie pliku; READ_ONLY przy otwieraniu lochu, wtedy set rzuca ReadOnlyBufferException
+    MappedTileStore(FileChannel channel, FileChannel.MapMode mode, long offset, int width, int height, int floors)
+            throws IOException {
+        this.width = width;
+        this.height = height;
+        this.floors = floors;
+        this.floorBytes = floorBytes(width, height);
+
+        long size = floorBytes * floors;
+        int count = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+        chunks = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(mode, offset + start, Math.min(CHUNK_MASK + 1, size - start));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // Bajty jednego piętra w pliku, zaokrąglone w górę do pełnych longów
+    static long floorBytes(int width, int height) {
+        return ((long) width * height + 15) / 16 * Long.BYTES;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public int floors() {
+        return floors;
+    }
+
+    @Override
+    public char get(int floor, int x, int y) {
+        long i = (long) y * width + x;
+        long offset = floor * floorBytes + (i >>> 1);
+        int b = chunks[(int) (offset >>> CHUNK_SHIFT)].get((int) (offset & CHUNK_MASK));
+        return TILES[(b >>> ((i & 1) * 4)) & 0xF];
+    }
+
+    @Override
+    public void set(int floor, int x, int y, char tile) {
+        long i = (long) y * width + x;
+        long offset = floor * floorBytes + (i >>> 1);
+        MappedByteBuffer chunk = chunks[(int) (offset >>> CHUNK_SHIFT)];
+        int pos = (int) (offset & CHUNK_MASK);
+        int shift = (int) (i & 1) * 4;
+        int b = chunk.get(pos);
+        chunk.put(pos, (byte) ((b & ~(0xF << shift)) | (TileStore.code(tile) << shift)));
+    }
+
+    @Override
+    public void fill(int floor, char tile) {
+        long pattern = 0;
+        for (int i = 0; i < 16; i++) {
+            pattern = (pattern << 4) | TileStore.code(tile);
+        }
+        long words = floorBytes / Long.BYTES;
+        for (long w = 0; w < words; w++) {
+            putWord(floor, w, pattern);
+        }
+    }
+
+    // Słowa nie przekraczają granic kawałków: kawałki i piętra są wielokrotnościami 8 bajtów
+    void putWord(int floor, long index, long word) {
+        long offset = floor * floorBytes + index * Long.BYTES;
+        chunks[(int) (offset >>> CHUNK_SHIFT)].putLong((int) (offset & CHUNK_MASK), word);
+    }
+
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+}
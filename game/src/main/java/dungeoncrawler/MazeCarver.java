@@ -0,0 +1,185 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Rzeźbienie labiryntu na siatce komórek co 2 pola (parzystość wyznacza losowy start).
+// Bez obiektów na krok: komórki jako y * width + x, stos i bufory to tablice intów wielokrotnego użytku.
+final class MazeCarver {
+
+    enum Mode {
+        // Klasyczny DFS z powrotami: długie korytarze, mało rozgałęzień (domyślny, jak dotąd)
+        RECURSIVE_BACKTRACKER,
+        // Pętle usuwane z losowych spacerów: jednorodne drzewo rozpinające, najwolniejszy
+        WILSON,
+        // Wiersz po wierszu, stan O(szerokość)
+        ELLER,
+        // Każda komórka łączy się na północ albo zachód: najszybszy, wyraźny skos
+        BINARY_TREE
+    }
+
+    private static final int[] DX = { 0, 1, 0, -1 };
+    private static final int[] DY = { 1, 0, -1, 0 };
+
+    private final int[] neighbors = new int[4];
+    private int[] stack = new int[64];
+    private byte[] bytes = new byte[0];
+    private FeatureIndex features;
+
+    int carve(TileStore tiles, int floor, Mode mode, SplittableRandom rand) {
+        return carve(tiles, floor, mode, rand, null);
+    }
+
+    // Zwraca komórkę startową (y * width + x); piętro musi być wcześniej wypełnione ścianami.
+    // Każde wykute pole trafia też do indeksu cech (jeśli podany), więc po rzeźbieniu nie trzeba skanować piętra
+    int carve(TileStore tiles, int floor, Mode mode, SplittableRandom rand, FeatureIndex features) {
+        int startX = rand.nextInt(tiles.width());
+        int startY = rand.nextInt(tiles.height());
+        return carve(tiles, floor, mode, startX, startY, rand, features);
+    }
+
+    // Start (i parzystość siatki) z góry, np. gdy schody sąsiednich pięter muszą trafić w otwarte pola
+    int carve(TileStore tiles, int floor, Mode mode, int startX, int startY, SplittableRandom rand, FeatureIndex features) {
+        this.features = features;
+        int width = tiles.width();
+
+        switch (mode) {
+            case RECURSIVE_BACKTRACKER:
+                carveBacktracker(tiles, floor, startX, startY, rand);
+                break;
+            case WILSON:
+                carveWilson(tiles, floor, startX, startY, rand);
+                break;
+            case ELLER:
+                carveEller(tiles, floor, startX % 2, startY % 2, rand);
+                break;
+            case BINARY_TREE:
+                carveBinaryTree(tiles, floor, startX % 2, startY % 2, rand);
+                break;
+        }
+        this.features = null;
+        return startY * width + startX;
+    }
+
+    private void carveBacktracker(TileStore tiles, int floor, int startX, int startY, SplittableRandom rand) {
+        int width = tiles.width();
+        int height = tiles.height();
+        int top = 0;
+        stack[top++] = startY * width + startX;
+        open(tiles, floor, startX, startY);
+
+        while (top > 0) {
+            int current = stack[top - 1];
+            int cx = current % width;
+            int cy = current / width;
+            int count = 0;
+
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d] * 2;
+                int ny = cy + DY[d] * 2;
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && tiles.get(floor, nx, ny) == '#') {
+                    neighbors[count++] = d;
+                }
+            }
+
+            if (count == 0) {
+                top--;
+            } else {
+                int d = neighbors[rand.nextInt(count)];
+                open(tiles, floor, cx + DX[d], cy + DY[d]);
+                open(tiles, floor, cx + DX[d] * 2, cy + DY[d] * 2);
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = current + DY[d] * 2 * width + DX[d] * 2;
+            }
+        }
+    }
+
+    private void carveWilson(TileStore tiles, int floor, int startX, int startY, SplittableRandom rand) {
+        int ox = startX % 2, oy = startY % 2;
+        int lw = (tiles.width() - ox + 1) / 2;
+        int lh = (tiles.height() - oy + 1) / 2;
+        int cells = lw * lh;
+
+        // bytes[c]: 0 = poza labiryntem, 1..4 = kierunek ostatniego wyjścia ze spaceru + 1, 5 = w labiryncie
+        byte[] walk = scratchBytes(cells);
+        Arrays.fill(walk, 0, cells, (byte) 0);
+        int start = (startY / 2) * lw + startX / 2;
+        walk[start] = 5;
+        open(tiles, floor, startX, startY);
+
+        for (int first = 0; first < cells; first++) {
+            if (walk[first] == 5) {
+                continue;
+            }
+
+            // Losowy spacer do labiryntu; nadpisywanie kierunku samo usuwa pętle
+            int c = first;
+            while (walk[c] != 5) {
+                int count = 0;
+                int cx = c % lw, cy = c / lw;
+                for (int d = 0; d < 4; d++) {
+                    int nx = cx + DX[d], ny = cy + DY[d];
+                    if (nx >= 0 && nx < lw && ny >= 0 && ny < lh) {
+                        neighbors[count++] = d;
+                    }
+                }
+                int d = neighbors[rand.nextInt(count)];
+                walk[c] = (byte) (d + 1);
+                c += DY[d] * lw + DX[d];
+            }
+
+            // Dołączenie ścieżki bez pętli do labiryntu
+            c = first;
+            while (walk[c] != 5) {
+                int d = walk[c] - 1;
+                int x = ox + (c % lw) * 2, y = oy + (c / lw) * 2;
+                open(tiles, floor, x, y);
+                open(tiles, floor, x + DX[d], y + DY[d]);
+                walk[c] = 5;
+                c += DY[d] * lw + DX[d];
+            }
+        }
+    }
+
+    // Ten sam generator, który strumieniuje wiersze dla ogromnych pięter; tu wiersze trafiają do TileStore
+    private void carveEller(TileStore tiles, int floor, int ox, int oy, SplittableRandom rand) {
+        new StreamingFloorGenerator(tiles.width(), tiles.height(), ox, oy, rand).generate((y, row) -> {
+            for (int x = 0; x < row.length; x++) {
+                if (row[x] == '.') {
+                    open(tiles, floor, x, y);
+                }
+            }
+        });
+    }
+
+    private void carveBinaryTree(TileStore tiles, int floor, int ox, int oy, SplittableRandom rand) {
+        for (int y = oy; y < tiles.height(); y += 2) {
+            for (int x = ox; x < tiles.width(); x += 2) {
+                open(tiles, floor, x, y);
+                boolean north = y - 2 >= 0;
+                boolean west = x - 2 >= 0;
+                if (north && (!west || rand.nextBoolean())) {
+                    open(tiles, floor, x, y - 1);
+                } else if (west) {
+                    open(tiles, floor, x - 1, y);
+                }
+            }
+        }
+    }
+
+    private void open(TileStore tiles, int floor, int x, int y) {
+        tiles.set(floor, x, y, '.');
+        if (features != null) {
+            features.opened(floor, x, y);
+        }
+    }
+
+    private byte[] scratchBytes(int size) {
+        if (bytes.length < size) {
+            bytes = new byte[size];
+        }
+        return bytes;
+    }
+}
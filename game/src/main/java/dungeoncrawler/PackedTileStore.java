@@ -0,0 +1,122 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// Kafelki spakowane po 16 na long (4 bity na komórkę), osobna tablica na każde piętro.
+// Piętro 10k x 10k to ok. 50 MB zamiast 200 MB w char[][], bez nagłówków tablic na każdy wiersz.
+final class PackedTileStore implements TileStore {
+
+    private static final int BITS = 4;
+    private static final int CELLS_PER_WORD = Long.SIZE / BITS;
+    private static final int WORD_SHIFT = 4; // log2(CELLS_PER_WORD)
+    private static final long MASK = (1L << BITS) - 1;
+
+    private final int width, height;
+    private final int wordsPerFloor;
+    private final long[][] words;
+
+    PackedTileStore(int width, int height, int floors) {
+        this(width, height, floors, true);
+    }
+
+    private PackedTileStore(int width, int height, int floors, boolean allocate) {
+        long floorSize = (long) width * height;
+        long wordsPerFloor = (floorSize + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+        if (wordsPerFloor > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Floor too large: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerFloor = (int) wordsPerFloor;
+        this.words = allocate ? new long[floors][this.wordsPerFloor] : new long[floors][];
+    }
+
+    // Magazyn bez pamięci na piętra; piętra przydziela i zwalnia właściciel (LazyTileStore)
+    static PackedTileStore sparse(int width, int height, int floors) {
+        return new PackedTileStore(width, height, floors, false);
+    }
+
+    boolean hasFloor(int floor) {
+        return words[floor] != null;
+    }
+
+    // Nowe piętro jest samą ścianą (kod 0)
+    void allocateFloor(int floor) {
+        words[floor] = new long[wordsPerFloor];
+    }
+
+    void releaseFloor(int floor) {
+        words[floor] = null;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public int floors() {
+        return words.length;
+    }
+
+    @Override
+    public char get(int floor, int x, int y) {
+        long i = (long) y * width + x;
+        long word = words[floor][(int) (i >>> WORD_SHIFT)];
+        return TILES[(int) ((word >>> ((i & (CELLS_PER_WORD - 1)) * BITS)) & MASK)];
+    }
+
+    @Override
+    public void set(int floor, int x, int y, char tile) {
+        long i = (long) y * width + x;
+        long[] floorWords = words[floor];
+        int w = (int) (i >>> WORD_SHIFT);
+        int shift = (int) (i & (CELLS_PER_WORD - 1)) * BITS;
+        floorWords[w] = (floorWords[w] & ~(MASK << shift)) | ((long) TileStore.code(tile) << shift);
+    }
+
+    @Override
+    public void fill(int floor, char tile) {
+        long pattern = 0;
+        for (int i = 0; i < CELLS_PER_WORD; i++) {
+            pattern = (pattern << BITS) | TileStore.code(tile);
+        }
+        Arrays.fill(words[floor], pattern);
+    }
+
+    // Niezależna kopia dowolnego magazynu, np. dla renderera działającego na innym wątku niż gra
+    static PackedTileStore copyOf(TileStore source) {
+        PackedTileStore copy = new PackedTileStore(source.width(), source.height(), source.floors());
+        for (int floor = 0; floor < source.floors(); floor++) {
+            if (source instanceof PackedTileStore) {
+                copy.copyFloor(floor, (PackedTileStore) source, floor);
+                continue;
+            }
+            for (int y = 0; y < source.height(); y++) {
+                for (int x = 0; x < source.width(); x++) {
+                    copy.set(floor, x, y, source.get(floor, x, y));
+                }
+            }
+        }
+        return copy;
+    }
+
+    // Kopia całego piętra z magazynu o tych samych wymiarach, słowo po słowie
+    void copyFloor(int floor, PackedTileStore source, int sourceFloor) {
+        System.arraycopy(source.words[sourceFloor], 0, words[floor], 0, words[floor].length);
+    }
+
+    int wordsPerFloor() {
+        return words.length == 0 ? 0 : wordsPerFloor;
+    }
+
+    // Surowe słowo 16 kafelków (komórka 0 w najmłodszych bitach), np. do zapisu na dysk
+    long word(int floor, int index) {
+        return words[floor][index];
+    }
+}
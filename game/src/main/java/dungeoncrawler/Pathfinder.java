@@ -0,0 +1,75 @@
+package dungeoncrawler;
+
+// Wymienny silnik szukania drogi. Ruchy wszędzie te same: krok na sąsiada, który nie jest '#',
+// a 'U'/'D' przenoszą na to samo x, y piętra wyżej/niżej (także na ścianę, z której da się zejść).
+// Każdy silnik zlicza rozwinięte węzły i czas wyszukiwań w stats().
+interface Pathfinder {
+
+    enum Algorithm {
+        // Wszerz z wczesnym wyjściem; bez dodatkowej pamięci poza bajtem kierunku na komórkę
+        BFS,
+        // Manhattan + liczba pięter do celu (schody kosztują jeden krok i nie zmieniają x, y)
+        A_STAR,
+        // Dwa BFS: od gracza i wstecz od celu, warstwa po warstwie, aż się spotkają
+        BIDIRECTIONAL,
+        // A* po punktach skoku: proste odcinki korytarzy przeskakiwane bez kolejki
+        JUMP_POINT,
+        // Dijkstra po grafie skrzyżowań: korytarze zwinięte do krawędzi, graf budowany raz na loch
+        JUNCTION
+    }
+
+    // Kody w tablicach kierunków: 0 = nieodwiedzona, 1..4 = krok z sąsiada, 5/6 = schody z piętra niżej/wyżej, 7 = start
+    byte UNVISITED = 0;
+    byte FROM_BELOW = 5;
+    byte FROM_ABOVE = 6;
+    byte START = 7;
+
+    int[] DX = { 0, 1, 0, -1 };
+    int[] DY = { 1, 0, -1, 0 };
+
+    // Najkrótsza ścieżka do 'G'; kolejne komórki bez startu trafiają do path, zwraca długość albo 0
+    int findPathToGoal(Dungeon d, int startX, int startY, int startFloor, IntQueue path);
+
+    // Czy (goalX, goalY) jest osiągalne ze (startX, startY) w obrębie jednego piętra
+    boolean isReachable(TileStore tiles, int floor, int startX, int startY, int goalX, int goalY);
+
+    SearchStats stats();
+
+    // Gra nadpisała ścianę, schody albo cel; silniki trzymające dane o lochu budują je od nowa
+    default void invalidate() {
+    }
+
+    static Pathfinder create(Algorithm algorithm) {
+        switch (algorithm) {
+            case A_STAR: return new AStarPathfinder();
+            case BIDIRECTIONAL: return new BidirectionalPathfinder();
+            case JUMP_POINT: return new JumpPointPathfinder();
+            case JUNCTION: return new JunctionPathfinder();
+            default: return new BfsPathfinder();
+        }
+    }
+
+    // Komórka, z której przyszliśmy do cell według kodu kierunku
+    static int parentOf(byte code, int cell, int width, int floorSize) {
+        if (code == FROM_BELOW) {
+            return cell - floorSize;
+        }
+        if (code == FROM_ABOVE) {
+            return cell + floorSize;
+        }
+        int dir = code - 1;
+        return cell - DY[dir] * width - DX[dir];
+    }
+
+    // Czy na (x, y) da się wylądować schodami z sąsiedniego piętra
+    static boolean isLanding(TileStore tiles, int floor, int x, int y) {
+        return (floor > 0 && tiles.get(floor - 1, x, y) == 'U')
+                || (floor < tiles.floors() - 1 && tiles.get(floor + 1, x, y) == 'D');
+    }
+
+    static void checkCapacity(long cells) {
+        if (cells > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many cells for a flat search: " + cells);
+        }
+    }
+}
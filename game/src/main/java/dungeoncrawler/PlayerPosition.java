@@ -0,0 +1,27 @@
+package dungeoncrawler;
+
+// Pozycja gracza: piętro i pole. Niezmienna, więc można ją przekazać innemu wątkowi bez kopiowania
+final class PlayerPosition {
+
+    final int floor;
+    final int x, y;
+
+    PlayerPosition(int floor, int x, int y) {
+        this.floor = floor;
+        this.x = x;
+        this.y = y;
+    }
+
+    boolean isAt(int floor, int x, int y) {
+        return this.floor == floor && this.x == x && this.y == y;
+    }
+
+    PlayerPosition moveTo(int x, int y) {
+        return new PlayerPosition(floor, x, y);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ") on floor " + floor;
+    }
+}
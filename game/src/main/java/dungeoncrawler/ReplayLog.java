@@ -0,0 +1,208 @@
+package dungeoncrawler;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Binarny zapis sesji: nagłówek z ziarnem, wymiarami i trybem, potem zdarzenia po jednym bajcie kodu.
+// Polecenia gracza to sam kod, kroki auto-play są zwijane w serie (licznik jako varint),
+// zmiana piętra i koniec partii zapisują stan do sprawdzenia przy odtwarzaniu.
+// Cała losowość gry wynika z ziarna, więc do odtworzenia wystarczą polecenia i liczba kroków.
+final class ReplayLog {
+
+    private static final int MAGIC = 0x4C505244; // "DRPL"
+    private static final int VERSION = 8;
+
+    // Kody 0..5 to polecenia GameLoop (UP..RESTART)
+    private static final int AUTO_STEPS = 6;
+    private static final int FLOOR = 7;
+    private static final int CHECK = 8;
+
+    private ReplayLog() {
+    }
+
+    // Zapis sesji; używany tylko przez wątek gry
+    static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private int pendingSteps;
+
+        Writer(Path file, DungeonGame game, boolean autoPlay) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(game.getSeed());
+            out.writeInt(game.getWidth());
+            out.writeInt(game.getHeight());
+            out.writeInt(game.getFloors());
+            out.writeBoolean(autoPlay);
+        }
+
+        void command(int command) throws IOException {
+            flushSteps();
+            out.writeByte(command);
+        }
+
+        void autoStep() {
+            pendingSteps++;
+        }
+
+        void floorChanged(DungeonGame game) throws IOException {
+            flushSteps();
+            out.writeByte(FLOOR);
+            writeVarLong(out, game.getCurrentFloor());
+            writeVarLong(out, game.getPlayerX());
+            writeVarLong(out, game.getPlayerY());
+        }
+
+        // Koniec partii: stan końcowy i skrót kafelków, zapis od razu trafia na dysk
+        void check(DungeonGame game) throws IOException {
+            flushSteps();
+            out.writeByte(CHECK);
+            writeVarLong(out, game.getSteps());
+            writeVarLong(out, game.getCurrentFloor());
+            writeVarLong(out, game.getPlayerX());
+            writeVarLong(out, game.getPlayerY());
+            out.writeBoolean(game.isGameWon());
+            out.writeLong(tileHash(game));
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushSteps();
+            out.close();
+        }
+
+        private void flushSteps() throws IOException {
+            if (pendingSteps > 0) {
+                out.writeByte(AUTO_STEPS);
+                writeVarLong(out, pendingSteps);
+                pendingSteps = 0;
+            }
+        }
+    }
+
+    // Wynik odtworzenia: gra w stanie końcowym i liczba sprawdzonych punktów kontrolnych
+    static final class Result {
+        final DungeonGame game;
+        final long events;
+        final int checks;
+
+        Result(DungeonGame game, long events, int checks) {
+            this.game = game;
+            this.events = events;
+            this.checks = checks;
+        }
+    }
+
+    // Odtwarza sesję bez okna i bez opóźnień; rzuca IllegalStateException przy pierwszej rozbieżności
+    static Result replay(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a replay log: " + file);
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported replay version " + version);
+            }
+            long seed = in.readLong();
+            int width = in.readInt();
+            int height = in.readInt();
+            int floors = in.readInt();
+            boolean autoPlay = in.readBoolean();
+
+            // Gra z pulą dostaje te same lochy i trasy co bez niej, więc odtwarzamy bez puli
+            DungeonGame game = new DungeonGame(seed, width, height, floors);
+            game.setLogging(false);
+            game.setAutoPlay(autoPlay);
+
+            long events = 0;
+            int checks = 0;
+            int code;
+            while ((code = in.read()) >= 0) {
+                events++;
+                switch (code) {
+                    case AUTO_STEPS:
+                        for (long n = readVarLong(in); n > 0; n--) {
+                            game.autoStep();
+                        }
+                        break;
+                    case FLOOR:
+                        expect(events, "floor", readVarLong(in), game.getCurrentFloor());
+                        expect(events, "x", readVarLong(in), game.getPlayerX());
+                        expect(events, "y", readVarLong(in), game.getPlayerY());
+                        break;
+                    case CHECK:
+                        expect(events, "steps", readVarLong(in), game.getSteps());
+                        expect(events, "floor", readVarLong(in), game.getCurrentFloor());
+                        expect(events, "x", readVarLong(in), game.getPlayerX());
+                        expect(events, "y", readVarLong(in), game.getPlayerY());
+                        expect(events, "won", in.readBoolean() ? 1 : 0, game.isGameWon() ? 1 : 0);
+                        expect(events, "tile hash", in.readLong(), tileHash(game));
+                        checks++;
+                        break;
+                    default:
+                        if (code > GameLoop.RESTART) {
+                            throw new IOException("Unknown replay event " + code + " at event " + events);
+                        }
+                        GameLoop.execute(game, autoPlay, code);
+                }
+            }
+            return new Result(game, events, checks);
+        }
+    }
+
+    // FNV-1a po kafelkach wszystkich pięter
+    static long tileHash(DungeonGame game) {
+        long hash = 0xcbf29ce484222325L;
+        for (int floor = 0; floor < game.getFloors(); floor++) {
+            for (int y = 0; y < game.getHeight(); y++) {
+                for (int x = 0; x < game.getWidth(); x++) {
+                    hash = (hash ^ game.tileAt(floor, x, y)) * 0x100000001b3L;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static void expect(long event, String what, long recorded, long actual) {
+        if (recorded != actual) {
+            throw new IllegalStateException("Replay diverged at event " + event + ": " + what
+                    + " recorded " + recorded + ", replayed " + actual);
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    // Użycie: java ReplayLog file
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        Result result = replay(Path.of(args[0]));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        DungeonGame game = result.game;
+        System.out.println("Seed:             " + game.getSeed());
+        System.out.println("Events:           " + result.events + ", checkpoints verified: " + result.checks);
+        System.out.println("Final state:      floor " + game.getCurrentFloor() + ", (" + game.getPlayerX() + ", "
+                + game.getPlayerY() + "), steps " + game.getSteps() + (game.isGameWon() ? ", won" : ""));
+        System.out.printf("Elapsed:          %.3f s%n", seconds);
+    }
+}
@@ -0,0 +1,39 @@
+package dungeoncrawler;
+
+// Liczniki jednego silnika: rozwinięte węzły i czas, dla ostatniego wyszukiwania i łącznie
+final class SearchStats {
+
+    private long searches;
+    private long expanded;
+    private long nanos;
+    private long lastExpanded;
+    private long lastNanos;
+
+    void record(long expandedNodes, long elapsedNanos) {
+        searches++;
+        expanded += expandedNodes;
+        nanos += elapsedNanos;
+        lastExpanded = expandedNodes;
+        lastNanos = elapsedNanos;
+    }
+
+    long searches() {
+        return searches;
+    }
+
+    long expanded() {
+        return expanded;
+    }
+
+    long nanos() {
+        return nanos;
+    }
+
+    long lastExpanded() {
+        return lastExpanded;
+    }
+
+    long lastNanos() {
+        return lastNanos;
+    }
+}
@@ -0,0 +1,233 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// Hierarchiczne szukanie drogi: węzłami są działające schody i cel, każdy z polem odległości
+// po swoim piętrze (BFS liczony raz na loch). Dijkstra po tym małym grafie daje koszt dojścia
+// do celu z każdego węzła, więc zapytanie to przejrzenie kilku węzłów piętra i zejście po polu.
+// Ruchy jak w BfsPathfinder: 'U'/'D' przenoszą na to samo x, y sąsiedniego piętra,
+// także na ścianę, z której da się zejść na otwartego sąsiada.
+final class StairGraph {
+
+    // Powyżej tego rozmiaru pola odległości (int na komórkę i węzeł) zajmowałyby za dużo pamięci
+    static final long MAX_CELLS = 1 << 24;
+
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final Dungeon d;
+    // Węzły posortowane po piętrach: węzły piętra f to [floorStart[f], floorStart[f + 1])
+    private final int[] floorStart;
+    private final int[] nodeCell;   // komórka zakodowana jak w Dungeon.cell
+    private final int[] landing;    // komórka na sąsiednim piętrze albo -1 dla celu
+    private final int[][] field;    // odległość po piętrze od węzła, -1 = nieosiągalne
+    private final int[] goalCost;   // koszt od węzła do celu, INF = brak drogi
+
+    StairGraph(Dungeon d) {
+        this.d = d;
+        TileStore tiles = d.tiles;
+        int floors = d.floors;
+
+        // Jedno przejście po piętrze: węzły do kolejki, przechodniość komórek do tablicy dzielonej przez pola piętra
+        floorStart = new int[floors + 1];
+        IntQueue found = new IntQueue();
+        int[] queue = new int[d.floorSize];
+        boolean[] open = new boolean[d.floorSize];
+        int[][] fields = new int[0][];
+        for (int f = 0; f < floors; f++) {
+            floorStart[f] = found.size();
+            for (int y = 0; y < d.height; y++) {
+                for (int x = 0; x < d.width; x++) {
+                    char tile = tiles.get(f, x, y);
+                    open[y * d.width + x] = tile != '#';
+                    if (isNode(tile, f, floors)) {
+                        found.add(d.cell(x, y, f));
+                    }
+                }
+            }
+            fields = Arrays.copyOf(fields, found.size());
+            for (int i = floorStart[f]; i < found.size(); i++) {
+                fields[i] = distanceField(open, found.get(i) - f * d.floorSize, queue);
+            }
+        }
+        int count = found.size();
+        floorStart[floors] = count;
+        field = fields;
+
+        nodeCell = new int[count];
+        landing = new int[count];
+        for (int i = 0; i < count; i++) {
+            int cell = found.get(i);
+            int f = d.cellFloor(cell);
+            char tile = tiles.get(f, d.cellX(cell), d.cellY(cell));
+            nodeCell[i] = cell;
+            landing[i] = tile == 'G' ? -1 : cell + (tile == 'U' ? d.floorSize : -d.floorSize);
+        }
+
+        goalCost = new int[count];
+        solve();
+    }
+
+    static boolean fits(Dungeon d) {
+        return d.cellCount() <= MAX_CELLS;
+    }
+
+    // Długość najkrótszej drogi do celu albo -1, gdy celu nie da się osiągnąć
+    int distanceToGoal(int x, int y, int floor) {
+        int best = bestNode(d.cell(x, y, floor));
+        return best < 0 ? -1 : entryDistance(best, d.cell(x, y, floor)) + goalCost[best];
+    }
+
+    // Ten sam kontrakt co BfsPathfinder.findPathToGoal: komórki bez startu trafiają do path
+    int findPathToGoal(int startX, int startY, int startFloor, IntQueue path) {
+        path.clear();
+        int cell = d.cell(startX, startY, startFloor);
+        int node = bestNode(cell);
+        if (node < 0) {
+            return 0;
+        }
+
+        while (true) {
+            // Zejście po polu węzła: w każdym kroku sąsiad bliżej o jeden
+            int[] distances = field[node];
+            int floorBase = d.cellFloor(cell) * d.floorSize;
+            int dist = entryDistance(node, cell);
+            while (dist > 0) {
+                int x = d.cellX(cell);
+                int y = d.cellY(cell);
+                for (int dir = 0; dir < 4; dir++) {
+                    int nx = x + Pathfinder.DX[dir];
+                    int ny = y + Pathfinder.DY[dir];
+                    if (nx >= 0 && nx < d.width && ny >= 0 && ny < d.height
+                            && distances[ny * d.width + nx] == dist - 1) {
+                        cell = floorBase + ny * d.width + nx;
+                        break;
+                    }
+                }
+                path.add(cell);
+                dist--;
+            }
+
+            if (landing[node] < 0) {
+                return path.size();
+            }
+            cell = landing[node];
+            path.add(cell);
+            node = bestNode(cell);
+        }
+    }
+
+    private static boolean isNode(char tile, int floor, int floors) {
+        return tile == 'G' || (tile == 'U' && floor < floors - 1) || (tile == 'D' && floor > 0);
+    }
+
+    // Węzeł piętra komórki z najmniejszą sumą: dojście do węzła + koszt od węzła do celu
+    private int bestNode(int cell) {
+        int floor = d.cellFloor(cell);
+        int best = -1;
+        long bestCost = INF;
+        for (int i = floorStart[floor]; i < floorStart[floor + 1]; i++) {
+            int entry = entryDistance(i, cell);
+            if (entry >= 0 && goalCost[i] != INF && (long) entry + goalCost[i] < bestCost) {
+                bestCost = (long) entry + goalCost[i];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // Odległość od komórki do węzła jej piętra; ze ściany (lądowanie ze schodów) krok na otwartego sąsiada
+    private int entryDistance(int node, int cell) {
+        int x = d.cellX(cell);
+        int y = d.cellY(cell);
+        int floor = d.cellFloor(cell);
+        if (d.tiles.get(floor, x, y) != '#') {
+            return field[node][y * d.width + x];
+        }
+        int best = -1;
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + Pathfinder.DX[dir];
+            int ny = y + Pathfinder.DY[dir];
+            if (nx >= 0 && nx < d.width && ny >= 0 && ny < d.height) {
+                int dist = field[node][ny * d.width + nx];
+                if (dist >= 0 && (best < 0 || dist + 1 < best)) {
+                    best = dist + 1;
+                }
+            }
+        }
+        return best;
+    }
+
+    // BFS po jednym piętrze; każda komórka trafia do kolejki raz, więc wystarcza płaska tablica bez zawijania
+    private int[] distanceField(boolean[] open, int start, int[] queue) {
+        int width = d.width;
+        int size = d.floorSize;
+        int[] distances = new int[size];
+        Arrays.fill(distances, -1);
+        distances[start] = 0;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int current = queue[head++];
+            int x = current % width;
+            int next = current + 1;
+            int dist = distances[current] + 1;
+            if (x + 1 < width && distances[next] < 0 && open[next]) {
+                distances[next] = dist;
+                queue[tail++] = next;
+            }
+            next = current - 1;
+            if (x > 0 && distances[next] < 0 && open[next]) {
+                distances[next] = dist;
+                queue[tail++] = next;
+            }
+            next = current + width;
+            if (next < size && distances[next] < 0 && open[next]) {
+                distances[next] = dist;
+                queue[tail++] = next;
+            }
+            next = current - width;
+            if (next >= 0 && distances[next] < 0 && open[next]) {
+                distances[next] = dist;
+                queue[tail++] = next;
+            }
+        }
+        return distances;
+    }
+
+    // Dijkstra od celu po odwróconych krawędziach schody -> węzły piętra lądowania; węzłów jest kilka na piętro
+    private void solve() {
+        int count = nodeCell.length;
+        boolean[] settled = new boolean[count];
+        Arrays.fill(goalCost, INF);
+        for (int i = 0; i < count; i++) {
+            if (landing[i] < 0) {
+                goalCost[i] = 0;
+            }
+        }
+
+        while (true) {
+            int next = -1;
+            for (int i = 0; i < count; i++) {
+                if (!settled[i] && goalCost[i] != INF && (next < 0 || goalCost[i] < goalCost[next])) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                return;
+            }
+            settled[next] = true;
+
+            int floor = d.cellFloor(nodeCell[next]);
+            for (int i = 0; i < count; i++) {
+                if (settled[i] || landing[i] < 0 || d.cellFloor(landing[i]) != floor) {
+                    continue;
+                }
+                int entry = entryDistance(next, landing[i]);
+                if (entry >= 0 && 1L + entry + goalCost[next] < goalCost[i]) {
+                    goalCost[i] = 1 + entry + goalCost[next];
+                }
+            }
+        }
+    }
+}
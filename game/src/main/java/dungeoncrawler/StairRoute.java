@@ -0,0 +1,108 @@
+package dungeoncrawler;
+
+import java.util.Arrays;
+
+// Auto-play bez struktur na cały loch, dla lochów czytanych z mapowania (DungeonFile) i zbyt dużych na pole
+// odległości. Graf składowych z DungeonConnectivity mówi, które schody składowej gracza prowadzą o krok
+// bliżej celu; trasa to BFS po jednym piętrze do najbliższych takich schodów albo do celu. Pamięć to etykiety
+// dwóch pięter i bajt kierunku na pole jednego piętra, a kafelki są czytane wprost z TileStore.
+// Plan od nowa po każdej zmianie piętra, jak w LazyTileStore.findPath.
+final class StairRoute {
+
+    private final Dungeon d;
+    private final DungeonConnectivity connectivity;
+    private final IntQueue targets = new IntQueue();
+    private final IntQueue queue = new IntQueue();
+    private byte[] from = new byte[0];
+
+    StairRoute(Dungeon d) {
+        this.d = d;
+        this.connectivity = new DungeonConnectivity(d);
+    }
+
+    // Ten sam kontrakt co Pathfinder.findPathToGoal, ale droga kończy się na schodach, jeśli cel jest na innym piętrze
+    int findPath(int floor, int startX, int startY, IntQueue path) {
+        path.clear();
+        int width = d.width, floorSize = d.floorSize;
+        int start = startY * width + startX;
+        int component = component(floor, startX, startY);
+        int hops = component < 0 ? -1 : connectivity.goalHops(component);
+        if (hops < 0) {
+            return 0;
+        }
+        if (hops == 0) {
+            targets.clear();
+            targets.add(d.goalY * width + d.goalX);
+        } else {
+            connectivity.stairsTowardGoal(component, targets);
+            // Gracz stoi już na dobrych schodach: krok na lądowisko
+            if (contains(targets, start)) {
+                char tile = d.tiles.get(floor, startX, startY);
+                path.add((floor + (tile == 'U' ? 1 : -1)) * floorSize + start);
+                return 1;
+            }
+        }
+
+        if (from.length < floorSize) {
+            from = new byte[floorSize];
+        }
+        Arrays.fill(from, 0, floorSize, Pathfinder.UNVISITED);
+        queue.clear();
+        from[start] = Pathfinder.START;
+        queue.add(start);
+        int target = -1;
+        while (!queue.isEmpty() && target < 0) {
+            int current = queue.poll();
+            int x = current % width, y = current / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + Pathfinder.DX[dir], ny = y + Pathfinder.DY[dir];
+                int next = current + Pathfinder.DY[dir] * width + Pathfinder.DX[dir];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < d.height && from[next] == Pathfinder.UNVISITED
+                        && d.tiles.get(floor, nx, ny) != '#') {
+                    from[next] = (byte) (dir + 1);
+                    queue.add(next);
+                    if (contains(targets, next)) {
+                        target = next;
+                        break;
+                    }
+                }
+            }
+        }
+        if (target >= 0) {
+            for (int c = target; c != start; c = Pathfinder.parentOf(from[c], c, width, floorSize)) {
+                path.addFirst(floor * floorSize + c);
+            }
+        }
+        return path.size();
+    }
+
+    // Składowa pola; ze ściany, na którą zeszły schody, ta sąsiednia składowa, która jest najbliżej celu
+    private int component(int floor, int x, int y) {
+        int component = connectivity.component(floor, y * d.width + x);
+        if (component >= 0) {
+            return component;
+        }
+        int best = -1;
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + Pathfinder.DX[dir], ny = y + Pathfinder.DY[dir];
+            if (nx >= 0 && nx < d.width && ny >= 0 && ny < d.height) {
+                int n = connectivity.component(floor, ny * d.width + nx);
+                if (n >= 0 && connectivity.goalHops(n) >= 0
+                        && (best < 0 || connectivity.goalHops(n) < connectivity.goalHops(best))) {
+                    best = n;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Schodów składowej jest kilka, więc wystarcza przejrzeć listę
+    private static boolean contains(IntQueue cells, int cell) {
+        for (int i = 0; i < cells.size(); i++) {
+            if (cells.get(i) == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,277 @@
+package dungeoncrawler;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Piętro generowane algorytmem Ellera wiersz po wierszu do ujścia, ze stanem O(szerokość):
+// pozwala budować piętra większe niż sterta (np. 1M x 1M) bez trzymania całego char[][].
+// Ślepe zaułki liczone są w oknie trzech wierszy, a cel i schody losowane próbkowaniem rezerwuarowym.
+final class StreamingFloorGenerator {
+
+    // Dostaje kolejne wiersze od y = 0; tablica jest używana ponownie po powrocie z row()
+    interface RowSink {
+        void row(int y, char[] row);
+    }
+
+    // Wynik strumienia. Wiersze poszły już do ujścia, więc cel i schody podawane są jako
+    // indeksy y * width + x (albo -1), które odbiorca nanosi sam, np. łatając zapisany plik.
+    static final class Placement {
+        long goal = -1;
+        long up = -1;
+        long down = -1;
+        long deadEnds;
+        long openCells;
+    }
+
+    private final int width, height;
+    private final int ox, oy;
+    private final SplittableRandom rand;
+
+    StreamingFloorGenerator(int width, int height, int ox, int oy, SplittableRandom rand) {
+        this.width = width;
+        this.height = height;
+        this.ox = ox;
+        this.oy = oy;
+        this.rand = rand;
+    }
+
+    // Parzystość siatki losowana tak jak w MazeCarver
+    static StreamingFloorGenerator create(int width, int height, SplittableRandom rand) {
+        return new StreamingFloorGenerator(width, height, rand.nextInt(width) % 2, rand.nextInt(height) % 2, rand);
+    }
+
+    // Same wiersze labiryntu ('#' i '.')
+    void generate(RowSink sink) {
+        int lw = (width - ox + 1) / 2;
+        int lh = (height - oy + 1) / 2;
+        char[] row = new char[width];
+        char[] below = new char[width];
+
+        // Obszary scratch: [0, lw) etykieta komórki wiersza (-1 = nowa), [lw, 3lw) rodzic etykiety,
+        // [3lw, 5lw) ostatnie wystąpienie / przenumerowanie etykiety, [5lw, 7lw) czy zbiór zszedł w dół
+        int[] scratch = new int[7 * lw];
+        int parent = lw, slot = 3 * lw, down = 5 * lw;
+        Arrays.fill(scratch, 0, lw, -1);
+        int nextLabel = 0;
+
+        int y = 0;
+        Arrays.fill(row, '#');
+        while (y < oy) {
+            sink.row(y++, row);
+        }
+
+        for (int r = 0; r < lh; r++) {
+            boolean lastRow = r == lh - 1;
+            Arrays.fill(row, '#');
+            Arrays.fill(below, '#');
+
+            for (int c = 0; c < lw; c++) {
+                if (scratch[c] < 0) {
+                    scratch[parent + nextLabel] = nextLabel;
+                    scratch[c] = nextLabel++;
+                }
+                row[ox + c * 2] = '.';
+            }
+
+            // Łączenie w poziomie (w ostatnim wierszu zawsze, gdy zbiory są różne)
+            for (int c = 0; c < lw - 1; c++) {
+                int a = find(scratch, parent, scratch[c]);
+                int b = find(scratch, parent, scratch[c + 1]);
+                if (a != b && (lastRow || rand.nextBoolean())) {
+                    scratch[parent + b] = a;
+                    row[ox + c * 2 + 1] = '.';
+                }
+            }
+            sink.row(y++, row);
+            if (lastRow) {
+                break;
+            }
+            for (int c = 0; c < lw; c++) {
+                scratch[c] = find(scratch, parent, scratch[c]);
+            }
+
+            // Co najmniej jedno przejście w dół z każdego zbioru: ostatnia komórka zbioru schodzi, jeśli żadna wcześniej
+            Arrays.fill(scratch, down, down + 2 * lw, 0);
+            for (int c = 0; c < lw; c++) {
+                scratch[slot + scratch[c]] = c;
+            }
+            for (int c = 0; c < lw; c++) {
+                int label = scratch[c];
+                if (rand.nextBoolean() || (scratch[slot + label] == c && scratch[down + label] == 0)) {
+                    below[ox + c * 2] = '.';
+                    scratch[down + label] = 1;
+                } else {
+                    scratch[c] = -1;
+                }
+            }
+            sink.row(y++, below);
+
+            // Przenumerowanie etykiet do [0, lw), żeby etykiety nie rosły z każdym wierszem
+            Arrays.fill(scratch, slot, slot + 2 * lw, -1);
+            nextLabel = 0;
+            for (int c = 0; c < lw; c++) {
+                int label = scratch[c];
+                if (label >= 0) {
+                    if (scratch[slot + label] < 0) {
+                        scratch[slot + label] = nextLabel++;
+                    }
+                    scratch[c] = scratch[slot + label];
+                }
+            }
+            for (int label = 0; label < nextLabel; label++) {
+                scratch[parent + label] = label;
+            }
+        }
+
+        Arrays.fill(row, '#');
+        while (y < height) {
+            sink.row(y++, row);
+        }
+    }
+
+    // Wiersze labiryntu plus przyrostowe szukanie ślepych zaułków i losowanie celu oraz schodów
+    Placement generate(RowSink sink, boolean isGoalFloor, boolean hasUp, boolean hasDown) {
+        FeatureScanner scanner = new FeatureScanner(sink, isGoalFloor);
+        generate(scanner);
+        scanner.finish();
+
+        Placement placement = scanner.placement;
+        // Trzy kandydatki na schody, żeby zawsze zostały dwie różne od celu
+        for (int i = 0; i < scanner.stairCount; i++) {
+            long candidate = scanner.stairs[i];
+            if (candidate == placement.goal) {
+                continue;
+            }
+            if (hasUp && placement.up < 0) {
+                placement.up = candidate;
+            } else if (hasDown && placement.down < 0) {
+                placement.down = candidate;
+            }
+        }
+        return placement;
+    }
+
+    private static int find(int[] scratch, int parent, int label) {
+        while (scratch[parent + label] != label) {
+            scratch[parent + label] = scratch[parent + scratch[parent + label]];
+            label = scratch[parent + label];
+        }
+        return label;
+    }
+
+    // Przekazuje wiersze dalej i ocenia środkowy wiersz okna, gdy znany jest wiersz pod nim
+    private final class FeatureScanner implements RowSink {
+
+        private static final int STAIR_SAMPLES = 3;
+
+        private final RowSink downstream;
+        private final boolean sampleGoal;
+        private final Placement placement = new Placement();
+        private final long[] stairs = new long[STAIR_SAMPLES];
+        private int stairCount;
+
+        private char[] above = new char[width];
+        private char[] middle = new char[width];
+        private char[] next = new char[width];
+        private int rows;
+
+        FeatureScanner(RowSink downstream, boolean sampleGoal) {
+            this.downstream = downstream;
+            this.sampleGoal = sampleGoal;
+        }
+
+        @Override
+        public void row(int y, char[] row) {
+            downstream.row(y, row);
+            System.arraycopy(row, 0, next, 0, width);
+            if (rows > 0) {
+                scan(rows - 1, rows > 1 ? above : null, middle, next);
+            }
+            char[] recycled = above;
+            above = middle;
+            middle = next;
+            next = recycled;
+            rows++;
+        }
+
+        void finish() {
+            if (rows > 0) {
+                scan(rows - 1, rows > 1 ? above : null, middle, null);
+            }
+        }
+
+        private void scan(int y, char[] up, char[] row, char[] down) {
+            for (int x = 0; x < width; x++) {
+                if (row[x] != '.') {
+                    continue;
+                }
+                long cell = (long) y * width + x;
+                placement.openCells++;
+                if (sampleGoal && rand.nextLong(placement.openCells) == 0) {
+                    placement.goal = cell;
+                }
+
+                int walls = 0;
+                if (x == 0 || row[x - 1] == '#') walls++;
+                if (x == width - 1 || row[x + 1] == '#') walls++;
+                if (up == null || up[x] == '#') walls++;
+                if (down == null || down[x] == '#') walls++;
+                if (walls == 3) {
+                    long seen = placement.deadEnds++;
+                    if (seen < STAIR_SAMPLES) {
+                        stairs[stairCount++] = cell;
+                    } else {
+                        long j = rand.nextLong(seen + 1);
+                        if (j < STAIR_SAMPLES) {
+                            stairs[(int) j] = cell;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Użycie: java StreamingFloorGenerator width height [seed] [plik]
+    // Bez pliku tylko mierzy przepustowość; z plikiem zapisuje wiersze jako tekst.
+    public static void main(String[] args) throws IOException {
+        int width = Integer.parseInt(args[0]);
+        int height = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        OutputStream out = args.length > 3 ? new BufferedOutputStream(new FileOutputStream(args[3]), 1 << 20) : null;
+        byte[] line = new byte[width + 1];
+        line[width] = '\n';
+        RowSink sink = (y, row) -> {
+            if (out != null) {
+                for (int x = 0; x < width; x++) {
+                    line[x] = (byte) row[x];
+                }
+                try {
+                    out.write(line);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        long start = System.nanoTime();
+        Placement placement = create(width, height, new SplittableRandom(seed)).generate(sink, true, true, true);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        if (out != null) {
+            out.close();
+        }
+
+        System.out.printf("Floor %dx%d in %.2f s (%.0f rows/s)%n", width, height, seconds, height / seconds);
+        System.out.println("Open cells: " + placement.openCells + ", dead ends: " + placement.deadEnds);
+        System.out.println("Goal: " + describe(placement.goal, width) + ", up: " + describe(placement.up, width)
+                + ", down: " + describe(placement.down, width));
+    }
+
+    private static String describe(long cell, int width) {
+        return cell < 0 ? "-" : "(" + cell % width + ", " + cell / width + ")";
+    }
+}
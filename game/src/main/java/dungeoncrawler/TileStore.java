@@ -0,0 +1,41 @@
+package dungeoncrawler;
+
+// Kafelki wszystkich pięter lochu. Siedem rodzajów kafelków mieści się w 4-bitowym kodzie;
+// kod 0 to ściana, więc świeży magazyn jest od razu wypełniony '#'.
+interface TileStore {
+
+    char[] TILES = { '#', '.', 'P', 'G', 'U', 'D', 'T' };
+
+    int width();
+
+    int height();
+
+    int floors();
+
+    char get(int floor, int x, int y);
+
+    void set(int floor, int x, int y, char tile);
+
+    void fill(int floor, char tile);
+
+    // Piętro ma być w pamięci, np. przed losowaniem pola z indeksu cech; leniwe magazyny generują je tutaj
+    default void load(int floor) {
+    }
+
+    static int code(char tile) {
+        switch (tile) {
+            case '#': return 0;
+            case '.': return 1;
+            case 'P': return 2;
+            case 'G': return 3;
+            case 'U': return 4;
+            case 'D': return 5;
+            case 'T': return 6;
+            default: throw new IllegalArgumentException("Unknown tile: " + tile);
+        }
+    }
+
+    static char tile(int code) {
+        return TILES[code];
+    }
+}
@@ -0,0 +1,53 @@
+package dungeoncrawler;
+
+// Kamera nad mapą: widoczny prostokąt w kafelkach. Przesuwa się dopiero, gdy gracz wyjdzie
+// ze środkowej strefy, więc zwykły krok nie wymaga przerysowania całego widoku.
+final class Viewport {
+
+    final int columns;
+    final int rows;
+    private final int mapWidth, mapHeight;
+    private int left, top;
+
+    Viewport(int mapWidth, int mapHeight, int maxColumns, int maxRows) {
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        columns = Math.min(mapWidth, maxColumns);
+        rows = Math.min(mapHeight, maxRows);
+    }
+
+    int left() {
+        return left;
+    }
+
+    int top() {
+        return top;
+    }
+
+    boolean contains(int x, int y) {
+        return x >= left && x < left + columns && y >= top && y < top + rows;
+    }
+
+    // Zwraca true, gdy kamera się przesunęła
+    boolean follow(int x, int y) {
+        int newLeft = follow(x, left, columns, mapWidth);
+        int newTop = follow(y, top, rows, mapHeight);
+        boolean moved = newLeft != left || newTop != top;
+        left = newLeft;
+        top = newTop;
+        return moved;
+    }
+
+    private static int follow(int position, int start, int size, int mapSize) {
+        int margin = size / 4;
+        if (position < start || position >= start + size) {
+            // Skok (schody, restart): gracz na środku
+            start = position - size / 2;
+        } else if (position < start + margin) {
+            start = position - margin;
+        } else if (position >= start + size - margin) {
+            start = position - size + margin + 1;
+        }
+        return Math.max(0, Math.min(start, mapSize - size));
+    }
+}
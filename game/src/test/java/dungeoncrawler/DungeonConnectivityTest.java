@@ -0,0 +1,45 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static dungeoncrawler.TestDungeons.forEachDungeon;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DungeonConnectivityTest {
+
+    @Test
+    void generatedDungeonsAreConnected() {
+        forEachDungeon(d -> {
+            assertTrue(new DungeonConnectivity(d).isValid(), d.width + "x" + d.height + "x" + d.floors + " seed " + d.seed);
+            assertEquals('G', d.tiles.get(d.goalFloor, d.goalX, d.goalY));
+        });
+    }
+
+    @Test
+    void floorWithoutStairsIsRepaired() {
+        for (MazeCarver.Mode mode : MazeCarver.Mode.values()) {
+            for (long seed = 1; seed <= 6; seed++) {
+                Dungeon d = DungeonGenerator.generate(seed, 15, 11, 4, mode);
+                // Piętro bez schodów jest odcięte od celu
+                int floor = d.goalFloor == 0 ? d.floors - 1 : 0;
+                for (int y = 0; y < d.height; y++) {
+                    for (int x = 0; x < d.width; x++) {
+                        char tile = d.tiles.get(floor, x, y);
+                        if (tile == 'U' || tile == 'D') {
+                            d.tiles.set(floor, x, y, '.');
+                        }
+                    }
+                }
+                DungeonConnectivity broken = new DungeonConnectivity(d);
+                assertFalse(broken.isValid(), mode + " seed " + seed);
+                assertTrue(broken.repair(new SplittableRandom(seed)), mode + " seed " + seed);
+                // Naprawa zapisuje schody w kafelkach, więc nowe etykietowanie też widzi spójny loch
+                assertTrue(new DungeonConnectivity(d).isValid(), mode + " seed " + seed);
+            }
+        }
+    }
+}
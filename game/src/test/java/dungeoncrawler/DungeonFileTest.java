@@ -0,0 +1,108 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DungeonFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripKeepsTilesGoalAndSeed() throws IOException {
+        for (long seed = 1; seed <= 5; seed++) {
+            Dungeon dungeon = DungeonGenerator.generate(seed, 37, 21, 4, MazeCarver.Mode.WILSON);
+            Path path = dir.resolve("d" + seed + ".dng");
+            DungeonFile.write(dungeon, path);
+
+            Dungeon opened = DungeonFile.open(path).dungeon;
+            assertEquals(dungeon.seed, opened.seed);
+            assertEquals(dungeon.goalFloor, opened.goalFloor);
+            assertEquals(dungeon.goalX, opened.goalX);
+            assertEquals(dungeon.goalY, opened.goalY);
+            for (int f = 0; f < dungeon.floors; f++) {
+                for (int y = 0; y < dungeon.height; y++) {
+                    for (int x = 0; x < dungeon.width; x++) {
+                        assertEquals(dungeon.tiles.get(f, x, y), opened.tiles.get(f, x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void stairIndexListsEveryStair() throws IOException {
+        for (MazeCarver.Mode mode : MazeCarver.Mode.values()) {
+            for (long seed = 1; seed <= 3; seed++) {
+                // 37 x 21 nie jest wielokrotnością 16, więc ostatnie słowo piętra ma półbajty wypełnienia
+                Dungeon dungeon = DungeonGenerator.generate(seed, 37, 21, 6, mode);
+                Path path = dir.resolve(mode + "-" + seed + ".dng");
+                DungeonFile.write(dungeon, path);
+                DungeonFile file = DungeonFile.open(path);
+                for (int f = 0; f < dungeon.floors; f++) {
+                    IntQueue up = new IntQueue(), down = new IntQueue();
+                    for (int y = 0; y < dungeon.height; y++) {
+                        for (int x = 0; x < dungeon.width; x++) {
+                            char tile = dungeon.tiles.get(f, x, y);
+                            if (tile == 'U') {
+                                up.add(y * dungeon.width + x);
+                            } else if (tile == 'D') {
+                                down.add(y * dungeon.width + x);
+                            }
+                        }
+                    }
+                    assertArrayEquals(up.toArray(), file.upStairs[f], mode + " seed " + seed + " floor " + f);
+                    assertArrayEquals(down.toArray(), file.downStairs[f], mode + " seed " + seed + " floor " + f);
+                }
+            }
+        }
+    }
+
+    @Test
+    void filesArePlayedFromTheMapping() throws IOException {
+        int[][] sizes = { {2, 1, 3}, {2, 2, 6}, {9, 7, 4}, {42, 24, 5}, {64, 48, 8} };
+        for (int[] size : sizes) {
+            for (long seed = 1; seed <= 5; seed++) {
+                Path path = dir.resolve("play-" + size[0] + "x" + size[1] + "x" + size[2] + "-" + seed + ".dng");
+                DungeonFile.write(DungeonGenerator.generate(seed, size[0], size[1], size[2]), path);
+                Dungeon dungeon = DungeonFile.open(path).dungeon;
+                // Bez pola odległości na stercie: trasa piętro po piętrze (StairRoute)
+                assertFalse(GoalDistanceField.fits(dungeon));
+
+                DungeonGame game = new DungeonGame(dungeon, seed);
+                game.setLogging(false);
+                game.setAutoPlay(true);
+                while (game.getSteps() < 100_000 && game.autoStep()) {
+                    // Do wygranej
+                }
+                assertTrue(game.isGameWon(), size[0] + "x" + size[1] + "x" + size[2] + " seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void openedDungeonIsReadOnlyAndPlayable() throws IOException {
+        Path path = dir.resolve("play.dng");
+        DungeonFile.write(DungeonGenerator.generate(3), path);
+        Dungeon dungeon = DungeonFile.open(path).dungeon;
+        assertThrows(ReadOnlyBufferException.class, () -> dungeon.tiles.set(0, 0, 0, '.'));
+
+        DungeonGame game = new DungeonGame(dungeon, 3);
+        game.setLogging(false);
+        game.setAutoPlay(true);
+        while (game.getSteps() < 100_000 && game.autoStep()) {
+            // Do wygranej
+        }
+        assertTrue(game.isGameWon());
+    }
+}
@@ -0,0 +1,66 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DungeonGeneratorTest {
+
+    @Test
+    void batchDoesNotDependOnThreadCount() {
+        long[] seeds = new long[12];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = 100 + i;
+        }
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool wide = new ForkJoinPool(4);
+        try {
+            for (MazeCarver.Mode mode : MazeCarver.Mode.values()) {
+                Dungeon[] one = DungeonGenerator.generateBatch(seeds, 31, 17, 6, mode, single);
+                Dungeon[] four = DungeonGenerator.generateBatch(seeds, 31, 17, 6, mode, wide);
+                for (int i = 0; i < seeds.length; i++) {
+                    // Ten sam loch co z generatora bez puli
+                    assertSame(DungeonGenerator.generate(seeds[i], 31, 17, 6, mode), one[i]);
+                    assertSame(one[i], four[i]);
+                }
+            }
+        } finally {
+            single.shutdown();
+            wide.shutdown();
+        }
+    }
+
+    @Test
+    void parallelFloorsMatchSequentialGeneration() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (MazeCarver.Mode mode : MazeCarver.Mode.values()) {
+                for (int[] size : TestDungeons.SIZES) {
+                    for (long seed = 1; seed <= 4; seed++) {
+                        // Piętra z puli muszą dać ten sam loch co budowane po kolei
+                        assertSame(DungeonGenerator.generate(seed, size[0], size[1], size[2], mode),
+                                DungeonGenerator.generate(seed, size[0], size[1], size[2], mode, pool));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSame(Dungeon expected, Dungeon actual) {
+        assertEquals(expected.seed, actual.seed);
+        assertEquals(expected.goalFloor, actual.goalFloor);
+        assertEquals(expected.goalX, actual.goalX);
+        assertEquals(expected.goalY, actual.goalY);
+        for (int f = 0; f < expected.floors; f++) {
+            for (int y = 0; y < expected.height; y++) {
+                for (int x = 0; x < expected.width; x++) {
+                    assertEquals(expected.tiles.get(f, x, y), actual.tiles.get(f, x, y), "seed " + expected.seed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameServerTest {
+
+    @Test
+    void clientMirrorFollowsTheGame() throws IOException {
+        Dungeon[] templates = GameServer.templates(11, 4, 30, 16, 4);
+        try (GameServer server = new GameServer(0, templates);
+             SocketChannel channel = SocketChannel.open(
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port()))) {
+            channel.write(GameProtocol.join(5, -1));
+            ByteBuffer welcome = readFrame(channel);
+            assertEquals(GameProtocol.WELCOME, welcome.get());
+            int template = welcome.getInt();
+            long seed = welcome.getLong();
+            int width = welcome.getInt(), height = welcome.getInt(), floors = welcome.getInt();
+            // Klient odtwarza mapę szablonu sam, z ziarna
+            Dungeon dungeon = DungeonGenerator.generate(seed, width, height, floors);
+            assertEquals(templates[template].seed, seed);
+
+            for (int round = 0; round < 2; round++) {
+                PackedTileStore mirror = PackedTileStore.copyOf(dungeon.tiles);
+                State state = readState(channel, dungeon, mirror);
+                assertTrue((state.flags & GameProtocol.RELOADED) != 0);
+                while ((state.flags & GameProtocol.WON) == 0) {
+                    channel.write(GameProtocol.command(GameProtocol.AUTO_STEP));
+                    state = readState(channel, dungeon, mirror);
+                    assertTrue(state.steps < 100_000);
+                    if ((state.flags & GameProtocol.ON_STAIRS) == 0 && (state.flags & GameProtocol.WON) == 0) {
+                        assertEquals('P', mirror.get(state.floor, state.x, state.y));
+                    }
+                }
+                assertEquals('G', dungeon.tiles.get(state.floor, state.x, state.y));
+                channel.write(GameProtocol.command(GameLoop.RESTART));
+            }
+        }
+    }
+
+    @Test
+    void templatesBeyondU16AreRejected() {
+        Dungeon wide = new Dungeon(new PackedTileStore(70_000, 1, 1), 1, 0, 0, 0);
+        assertThrows(IllegalArgumentException.class, () -> new GameServer(0, new Dungeon[]{wide}));
+    }
+
+    private static final class State {
+        int flags, floor, x, y;
+        long steps;
+    }
+
+    // Ramki STATE jednego polecenia (z flagą MORE aż do ostatniej) naniesione na lustro klienta
+    private static State readState(SocketChannel channel, Dungeon dungeon, PackedTileStore mirror) throws IOException {
+        State state = new State();
+        do {
+            ByteBuffer frame = readFrame(channel);
+            assertEquals(GameProtocol.STATE, frame.get());
+            state.flags = frame.get();
+            state.floor = frame.getShort() & 0xFFFF;
+            state.x = frame.getShort() & 0xFFFF;
+            state.y = frame.getShort() & 0xFFFF;
+            state.steps = frame.getLong();
+            int count = frame.getShort() & 0xFFFF;
+            for (int i = 0; i < count; i++) {
+                int cell = frame.getInt();
+                char tile = TileStore.tile(frame.get());
+                // Gracz zostawia 'P' tylko na bieżącym polu; stare 'P' przykryje zmiana na 'T'
+                mirror.set(dungeon.cellFloor(cell), dungeon.cellX(cell), dungeon.cellY(cell), tile);
+            }
+        } while ((state.flags & GameProtocol.MORE) != 0);
+        return state;
+    }
+
+    private static ByteBuffer readFrame(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(GameProtocol.HEADER);
+        readFully(channel, header);
+        ByteBuffer frame = ByteBuffer.allocate(header.getShort(0) & 0xFFFF);
+        readFully(channel, frame);
+        return frame.flip();
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+        }
+    }
+}
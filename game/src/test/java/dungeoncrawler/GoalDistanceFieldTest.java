@@ -0,0 +1,57 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+
+import static dungeoncrawler.TestDungeons.checkWalk;
+import static dungeoncrawler.TestDungeons.describe;
+import static dungeoncrawler.TestDungeons.distance;
+import static dungeoncrawler.TestDungeons.forEachDungeon;
+import static dungeoncrawler.TestDungeons.startCells;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GoalDistanceFieldTest {
+
+    @Test
+    void goalFieldMatchesBfs() {
+        forEachDungeon(d -> {
+            GoalDistanceField field = d.goalField();
+            BfsPathfinder bfs = new BfsPathfinder();
+            IntQueue expected = new IntQueue();
+            IntQueue path = new IntQueue();
+            for (int cell : startCells(d)) {
+                int length = bfs.findPathToGoal(d, d.cellX(cell), d.cellY(cell), d.cellFloor(cell), expected);
+                int distance = distance(d, cell, length);
+                assertEquals(distance, field.distance(cell), describe(d, cell));
+                if (distance < 0) {
+                    assertEquals(-1, field.nextCell(cell), describe(d, cell));
+                    continue;
+                }
+                // Następniki pola to też najkrótsza droga
+                path.clear();
+                for (int c = field.nextCell(cell); c >= 0; c = field.nextCell(c)) {
+                    path.add(c);
+                }
+                assertEquals(distance, path.size(), describe(d, cell));
+                checkWalk(d, cell, path, describe(d, cell));
+            }
+        });
+    }
+
+    @Test
+    void gamesPlayedFromTheFieldAreWon() {
+        for (int[] size : TestDungeons.SIZES) {
+            for (long seed = 1; seed <= 8; seed++) {
+                // Bez silnika auto-play idzie po polu odległości
+                DungeonGame game = new DungeonGame(seed, size[0], size[1], size[2]);
+                game.setLogging(false);
+                game.setPathfinder(null);
+                game.setAutoPlay(true);
+                while (game.getSteps() < 100_000 && game.autoStep()) {
+                    // Do wygranej
+                }
+                assertTrue(game.isGameWon(), size[0] + "x" + size[1] + "x" + size[2] + " seed " + seed);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+
+import static dungeoncrawler.TestDungeons.checkWalk;
+import static dungeoncrawler.TestDungeons.describe;
+import static dungeoncrawler.TestDungeons.forEachDungeon;
+import static dungeoncrawler.TestDungeons.startCells;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JunctionGraphTest {
+
+    @Test
+    void graphMatchesBfs() {
+        forEachDungeon(d -> {
+            JunctionGraph graph = new JunctionGraph(d.tiles);
+            BfsPathfinder bfs = new BfsPathfinder();
+            IntQueue expected = new IntQueue();
+            IntQueue path = new IntQueue();
+            int[] cells = startCells(d);
+            for (int i = 0; i < cells.length; i++) {
+                int cell = cells[i];
+                int x = d.cellX(cell), y = d.cellY(cell), floor = d.cellFloor(cell);
+                int length = bfs.findPathToGoal(d, x, y, floor, expected);
+                assertEquals(length, graph.findPathToGoal(cell, path), describe(d, cell));
+                checkWalk(d, cell, path, describe(d, cell));
+                // Osiągalność także do pól w środku korytarzy, nie tylko do węzłów
+                int to = cells[(i * 7 + 3) % cells.length];
+                if (d.cellFloor(to) == floor) {
+                    assertEquals(bfs.isReachable(d.tiles, floor, x, y, d.cellX(to), d.cellY(to)),
+                            graph.isReachable(cell, to), describe(d, cell) + " -> " + describe(d, to));
+                }
+            }
+        });
+    }
+
+    @Test
+    void corridorsAreContracted() {
+        for (MazeCarver.Mode mode : MazeCarver.Mode.values()) {
+            Dungeon d = DungeonGenerator.generate(7, 81, 61, 3, mode);
+            int open = 0;
+            for (int f = 0; f < d.floors; f++) {
+                for (int y = 0; y < d.height; y++) {
+                    for (int x = 0; x < d.width; x++) {
+                        open += d.tiles.get(f, x, y) != '#' ? 1 : 0;
+                    }
+                }
+            }
+            JunctionGraph graph = new JunctionGraph(d.tiles);
+            assertTrue(graph.nodeCount() < open / 2, mode + ": " + graph.nodeCount() + " nodes, " + open + " open");
+        }
+    }
+
+    @Test
+    void invalidateSeesOverwrittenWalls() {
+        Dungeon d = DungeonGenerator.generate(3, 21, 15, 3, MazeCarver.Mode.RECURSIVE_BACKTRACKER);
+        Pathfinder junction = Pathfinder.create(Pathfinder.Algorithm.JUNCTION);
+        BfsPathfinder bfs = new BfsPathfinder();
+        IntQueue path = new IntQueue();
+        IntQueue expected = new IntQueue();
+        int start = startCells(d)[0];
+        int x = d.cellX(start), y = d.cellY(start), floor = d.cellFloor(start);
+        junction.findPathToGoal(d, x, y, floor, path);
+        // Zamurowanie zwykłego pola na drodze (nie schodów ani celu) musi zmienić wynik po invalidate
+        for (int i = 0; i < path.size(); i++) {
+            int cell = path.get(i);
+            if (d.tiles.get(d.cellFloor(cell), d.cellX(cell), d.cellY(cell)) == '.') {
+                d.tiles.set(d.cellFloor(cell), d.cellX(cell), d.cellY(cell), '#');
+                break;
+            }
+        }
+        junction.invalidate();
+        int length = bfs.findPathToGoal(d, x, y, floor, expected);
+        assertEquals(length, junction.findPathToGoal(d, x, y, floor, path));
+        checkWalk(d, start, path, describe(d, start));
+    }
+}
@@ -0,0 +1,71 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyTileStoreTest {
+
+    private static final int RESIDENT = 3;
+
+    @Test
+    void lazyGamesAreWonWithinResidentLimit() {
+        for (long seed = 1; seed <= 40; seed++) {
+            DungeonGame game = new DungeonGame(seed, 24, 16, 12, RESIDENT);
+            game.setLogging(false);
+            playToWin(game, seed);
+
+            // restart() buduje nowy leniwy loch
+            game.restart();
+            playToWin(game, seed);
+        }
+    }
+
+    @Test
+    void evictedFloorIsRegeneratedIdentically() {
+        LazyTileStore tiles = new LazyTileStore(7, 30, 20, 8, 2);
+        String[] first = new String[8];
+        for (int f = 0; f < 8; f++) {
+            first[f] = floor(tiles, f);
+        }
+        assertTrue(tiles.evictedFloors() > 0);
+        // Odwrotna kolejność: każde piętro znowu generowane po usunięciu z pamięci
+        for (int f = 7; f >= 0; f--) {
+            assertEquals(first[f], floor(tiles, f), "floor " + f);
+        }
+        assertTrue(tiles.peakResidentFloors() <= 2);
+    }
+
+    @Test
+    void lazyDungeonIsConnected() {
+        for (long seed = 1; seed <= 20; seed++) {
+            LazyTileStore tiles = new LazyTileStore(seed, 22, 14, 6, 6);
+            Dungeon dungeon = tiles.dungeon();
+            for (int f = 0; f < 6; f++) {
+                tiles.load(f);
+            }
+            assertTrue(new DungeonConnectivity(dungeon).isValid(), "seed " + seed);
+        }
+    }
+
+    private static void playToWin(DungeonGame game, long seed) {
+        game.setAutoPlay(true);
+        while (game.getSteps() < 1_000_000 && game.autoStep()) {
+            // Do wygranej albo końca trasy
+        }
+        assertTrue(game.isGameWon(), "seed " + seed);
+        LazyTileStore tiles = (LazyTileStore) game.getDungeon().tiles;
+        assertTrue(tiles.peakResidentFloors() <= RESIDENT, "resident floors " + tiles.peakResidentFloors());
+    }
+
+    private static String floor(TileStore tiles, int f) {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < tiles.height(); y++) {
+            for (int x = 0; x < tiles.width(); x++) {
+                sb.append(tiles.get(f, x, y));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static dungeoncrawler.TestDungeons.checkWalk;
+import static dungeoncrawler.TestDungeons.describe;
+import static dungeoncrawler.TestDungeons.forEachDungeon;
+import static dungeoncrawler.TestDungeons.startCells;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathfinderTest {
+
+    @Test
+    void everyEngineMatchesBfs() {
+        forEachDungeon(d -> {
+            BfsPathfinder bfs = new BfsPathfinder();
+            IntQueue expected = new IntQueue();
+            IntQueue path = new IntQueue();
+            for (Pathfinder.Algorithm algorithm : Pathfinder.Algorithm.values()) {
+                Pathfinder engine = Pathfinder.create(algorithm);
+                for (int cell : startCells(d)) {
+                    int x = d.cellX(cell), y = d.cellY(cell), floor = d.cellFloor(cell);
+                    int length = bfs.findPathToGoal(d, x, y, floor, expected);
+                    assertEquals(length, engine.findPathToGoal(d, x, y, floor, path), algorithm + " " + describe(d, cell));
+                    assertEquals(length, path.size(), algorithm + " " + describe(d, cell));
+                    checkWalk(d, cell, path, algorithm + " " + describe(d, cell));
+                }
+            }
+        });
+    }
+
+    @Test
+    void isReachableMatchesBfs() {
+        forEachDungeon(d -> {
+            BfsPathfinder bfs = new BfsPathfinder();
+            SplittableRandom rand = new SplittableRandom(d.seed);
+            int[] cells = startCells(d);
+            for (Pathfinder.Algorithm algorithm : Pathfinder.Algorithm.values()) {
+                Pathfinder engine = Pathfinder.create(algorithm);
+                for (int i = 0; i < cells.length; i++) {
+                    int from = cells[i];
+                    // Drugi koniec z tego samego piętra, żeby para miała szansę być osiągalna
+                    int to = cells[rand.nextInt(cells.length)];
+                    int floor = d.cellFloor(from);
+                    if (d.cellFloor(to) != floor) {
+                        continue;
+                    }
+                    boolean expected = bfs.isReachable(d.tiles, floor, d.cellX(from), d.cellY(from), d.cellX(to), d.cellY(to));
+                    assertEquals(expected, engine.isReachable(d.tiles, floor, d.cellX(from), d.cellY(from),
+                            d.cellX(to), d.cellY(to)), algorithm + " " + describe(d, from) + " -> " + describe(d, to));
+                }
+            }
+        });
+    }
+
+    @Test
+    void searchEnginesExpandFewerNodesThanBfs() {
+        // Heurystyka, przeszukiwanie z dwóch stron i skoki mają przeglądać mniej niż zwykły BFS
+        Pathfinder.Algorithm[] algorithms = {
+                Pathfinder.Algorithm.A_STAR, Pathfinder.Algorithm.BIDIRECTIONAL, Pathfinder.Algorithm.JUMP_POINT };
+        Pathfinder bfs = Pathfinder.create(Pathfinder.Algorithm.BFS);
+        Pathfinder[] engines = new Pathfinder[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            engines[i] = Pathfinder.create(algorithms[i]);
+        }
+        IntQueue path = new IntQueue();
+        for (MazeCarver.Mode mode : MazeCarver.Mode.values()) {
+            for (long seed = 1; seed <= 4; seed++) {
+                Dungeon d = DungeonGenerator.generate(seed, 61, 41, 3, mode);
+                for (int cell : startCells(d)) {
+                    int x = d.cellX(cell), y = d.cellY(cell), floor = d.cellFloor(cell);
+                    bfs.findPathToGoal(d, x, y, floor, path);
+                    for (Pathfinder engine : engines) {
+                        engine.findPathToGoal(d, x, y, floor, path);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < algorithms.length; i++) {
+            long expanded = engines[i].stats().expanded();
+            assertTrue(expanded < bfs.stats().expanded(), algorithms[i] + ": " + expanded + " vs " + bfs.stats().expanded());
+        }
+    }
+}
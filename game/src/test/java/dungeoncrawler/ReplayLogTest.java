@@ -0,0 +1,61 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pooledAutoPlayReplaysWithoutPool() throws IOException {
+        Path file = dir.resolve("auto.replay");
+        DungeonGame game = new DungeonGame(21);
+        game.setLogging(false);
+        try (DungeonPool pool = game.usePool(2, 0);
+             ReplayLog.Writer recorder = new ReplayLog.Writer(file, game, true)) {
+            game.setAutoPlay(true);
+            for (int round = 0; round < 3; round++) {
+                while (game.autoStep()) {
+                    recorder.autoStep();
+                }
+                recorder.autoStep();
+                assertTrue(game.isGameWon());
+                recorder.check(game);
+                recorder.command(GameLoop.RESTART);
+                GameLoop.execute(game, true, GameLoop.RESTART);
+            }
+        }
+
+        ReplayLog.Result result = ReplayLog.replay(file);
+        assertEquals(3, result.checks);
+        assertEquals(ReplayLog.tileHash(game), ReplayLog.tileHash(result.game));
+    }
+
+    @Test
+    void manualSessionReplays() throws IOException {
+        Path file = dir.resolve("manual.replay");
+        DungeonGame game = new DungeonGame(8);
+        game.setLogging(false);
+        try (ReplayLog.Writer recorder = new ReplayLog.Writer(file, game, false)) {
+            int[] moves = {GameLoop.UP, GameLoop.RIGHT, GameLoop.DOWN, GameLoop.LEFT, GameLoop.STAIRS};
+            for (int i = 0; i < 400; i++) {
+                int command = moves[(i * 7 + i / 5) % moves.length];
+                recorder.command(command);
+                GameLoop.execute(game, false, command);
+            }
+            recorder.check(game);
+        }
+
+        ReplayLog.Result result = ReplayLog.replay(file);
+        assertEquals(1, result.checks);
+        assertEquals(game.getSteps(), result.game.getSteps());
+    }
+}
@@ -0,0 +1,49 @@
+package dungeoncrawler;
+
+import org.junit.jupiter.api.Test;
+
+import static dungeoncrawler.TestDungeons.checkWalk;
+import static dungeoncrawler.TestDungeons.describe;
+import static dungeoncrawler.TestDungeons.distance;
+import static dungeoncrawler.TestDungeons.forEachDungeon;
+import static dungeoncrawler.TestDungeons.startCells;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StairGraphTest {
+
+    @Test
+    void stairGraphMatchesBfs() {
+        forEachDungeon(d -> {
+            assertTrue(StairGraph.fits(d));
+            StairGraph graph = new StairGraph(d);
+            BfsPathfinder bfs = new BfsPathfinder();
+            IntQueue expected = new IntQueue();
+            IntQueue path = new IntQueue();
+            for (int cell : startCells(d)) {
+                int x = d.cellX(cell), y = d.cellY(cell), floor = d.cellFloor(cell);
+                int length = bfs.findPathToGoal(d, x, y, floor, expected);
+                assertEquals(distance(d, cell, length), graph.distanceToGoal(x, y, floor), describe(d, cell));
+                assertEquals(length, graph.findPathToGoal(x, y, floor, path), describe(d, cell));
+                checkWalk(d, cell, path, describe(d, cell));
+            }
+        });
+    }
+
+    @Test
+    void gamesPlannedOverTheStairGraphAreWon() {
+        for (int[] size : TestDungeons.SIZES) {
+            for (long seed = 1; seed <= 8; seed++) {
+                // Jawny silnik: BFS na piętrze, StairGraph między piętrami
+                DungeonGame game = new DungeonGame(seed, size[0], size[1], size[2]);
+                game.setLogging(false);
+                game.setPathfinder(Pathfinder.create(Pathfinder.Algorithm.BFS));
+                game.setAutoPlay(true);
+                while (game.getSteps() < 100_000 && game.autoStep()) {
+                    // Do wygranej
+                }
+                assertTrue(game.isGameWon(), size[0] + "x" + size[1] + "x" + size[2] + " seed " + seed);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package dungeoncrawler;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Wspólne lochy testowe i sprawdzanie dróg dla testów silników, grafów i pól odległości
+final class TestDungeons {
+
+    // Zdegenerowane rozmiary (piętra z jednym, dwoma polami) obok zwykłych
+    static final int[][] SIZES = { {2, 1, 3}, {2, 2, 6}, {3, 1, 5}, {1, 1, 4}, {9, 7, 4}, {42, 24, 5} };
+    // Powyżej tylu otwartych pól sprawdzamy losową próbkę zamiast wszystkich
+    private static final int ALL_CELLS = 400;
+    private static final int SAMPLE = 150;
+
+    private TestDungeons() {
+    }
+
+    interface DungeonCheck {
+        void check(Dungeon d);
+    }
+
+    static void forEachDungeon(DungeonCheck check) {
+        for (MazeCarver.Mode mode : MazeCarver.Mode.values()) {
+            for (int[] size : SIZES) {
+                for (long seed = 1; seed <= 6; seed++) {
+                    check.check(DungeonGenerator.generate(seed, size[0], size[1], size[2], mode));
+                }
+            }
+        }
+    }
+
+    // Otwarte pola (także schody i cel), na dużych lochach losowa próbka
+    static int[] startCells(Dungeon d) {
+        IntQueue open = new IntQueue();
+        for (int f = 0; f < d.floors; f++) {
+            for (int y = 0; y < d.height; y++) {
+                for (int x = 0; x < d.width; x++) {
+                    if (d.tiles.get(f, x, y) != '#') {
+                        open.add(d.cell(x, y, f));
+                    }
+                }
+            }
+        }
+        int count = Math.min(open.size(), open.size() <= ALL_CELLS ? ALL_CELLS : SAMPLE);
+        int[] cells = new int[count];
+        SplittableRandom rand = new SplittableRandom(d.seed);
+        for (int i = 0; i < count; i++) {
+            cells[i] = open.size() <= ALL_CELLS ? open.get(i) : open.get(rand.nextInt(open.size()));
+        }
+        return cells;
+    }
+
+    // Długość z BFS na odległość: 0 także na celu, -1 gdy celu nie widać
+    static int distance(Dungeon d, int cell, int length) {
+        boolean onGoal = cell == d.cell(d.goalX, d.goalY, d.goalFloor);
+        return length == 0 && !onGoal ? -1 : length;
+    }
+
+    // Każdy krok ścieżki jest dozwolonym ruchem, a ostatni kończy na celu
+    static void checkWalk(Dungeon d, int start, IntQueue path, String where) {
+        int cell = start;
+        for (int i = 0; i < path.size(); i++) {
+            int next = path.get(i);
+            assertTrue(isMove(d, cell, next), where + ": step " + i);
+            cell = next;
+        }
+        if (path.size() > 0) {
+            assertEquals(d.cell(d.goalX, d.goalY, d.goalFloor), cell, where);
+        }
+    }
+
+    private static boolean isMove(Dungeon d, int from, int to) {
+        int floor = d.cellFloor(from);
+        char tile = d.tiles.get(floor, d.cellX(from), d.cellY(from));
+        if (tile == 'U' && to == from + d.floorSize || tile == 'D' && to == from - d.floorSize) {
+            return true;
+        }
+        if (d.cellFloor(to) != floor || d.tiles.get(floor, d.cellX(to), d.cellY(to)) == '#') {
+            return false;
+        }
+        return Math.abs(d.cellX(to) - d.cellX(from)) + Math.abs(d.cellY(to) - d.cellY(from)) == 1;
+    }
+
+    static String describe(Dungeon d, int cell) {
+        return d.width + "x" + d.height + "x" + d.floors + " seed " + d.seed
+                + " at " + d.cellX(cell) + "," + d.cellY(cell) + "," + d.cellFloor(cell);
+    }
+}